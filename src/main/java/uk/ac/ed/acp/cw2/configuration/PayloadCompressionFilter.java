@@ -0,0 +1,413 @@
+package uk.ac.ed.acp.cw2.configuration;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.WebUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip compression and payload size metrics for /api/v1 responses:
+ * JSON (application/json, *+json) and CBOR bodies are gzipped when the client sends
+ * Accept-Encoding: gzip and the body reaches the size threshold, smaller bodies go out as is
+ * NDJSON streams are never compressed so every line still reaches the client when flushed
+ * non-blocking writers (setWriteListener) get the container's stream directly, uncompressed
+ * every response records its raw and sent bytes in the api.payload.bytes histogram,
+ * tagged with the endpoint pattern, kind (raw or sent) and content encoding
+ * Done here rather than with server.compression because Tomcat compresses below the
+ * servlet layer, where the compressed size cannot be measured
+ */
+@Component
+public class PayloadCompressionFilter extends OncePerRequestFilter {
+
+    public static final String METRIC_NAME = "api.payload.bytes";
+
+    private static final List<MediaType> COMPRESSIBLE_TYPES = List.of(
+            MediaType.APPLICATION_JSON,
+            new MediaType("application", "*+json"),
+            MediaType.APPLICATION_CBOR);
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int minResponseSize;
+
+    public PayloadCompressionFilter(ObjectProvider<MeterRegistry> meterRegistry,
+                                    @Value("${payload.compression.enabled:true}") boolean enabled,
+                                    @Value("${payload.compression.min-response-size:2048}") int minResponseSize) {
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.enabled = enabled;
+        this.minResponseSize = minResponseSize;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/v1/");
+    }
+
+    // Streaming bodies finish on the async dispatch, so the filter has to see it too
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        CompressingResponse wrapped = WebUtils.getNativeResponse(response, CompressingResponse.class);
+        if (wrapped == null) {
+            wrapped = new CompressingResponse(response, enabled && acceptsGzip(request), minResponseSize);
+        }
+
+        filterChain.doFilter(request, wrapped);
+
+        if (!request.isAsyncStarted()) {
+            wrapped.finish();
+            record(request, wrapped);
+        }
+    }
+
+    private void record(HttpServletRequest request, CompressingResponse response) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String encoding = response.isCompressed() ? "gzip" : "identity";
+
+        summary(uri, "raw", encoding).record(response.getRawBytes());
+        summary(uri, "sent", encoding).record(response.getSentBytes());
+    }
+
+    private DistributionSummary summary(String uri, String kind, String encoding) {
+        return DistributionSummary.builder(METRIC_NAME)
+                .description("Response payload size before and after compression")
+                .baseUnit("bytes")
+                .tag("uri", uri)
+                .tag("kind", kind)
+                .tag("encoding", encoding)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // gzip (or *) listed among the comma-separated codings with a non-zero q, gzip;q=0 is a refusal
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = qualityOf(parts) > 0;
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    // q parameter of one coding, 1 when missing or unreadable
+    private static double qualityOf(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q')
+                    && parameter.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 1.0;
+                }
+            }
+        }
+        return 1.0;
+    }
+
+    private static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return COMPRESSIBLE_TYPES.stream().anyMatch(type -> type.includes(mediaType));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Response whose body is held back until it reaches the threshold:
+     * past the threshold it switches to gzip, at the end a smaller body is written as is
+     * flushes while buffering are held back too, Content-Length is only passed on uncompressed
+     * a WriteListener switches the body to plain, its isReady and callbacks are the container's
+     */
+    static class CompressingResponse extends HttpServletResponseWrapper {
+
+        private enum Mode { UNDECIDED, BUFFERING, PLAIN, GZIP, FINISHED }
+
+        private final boolean gzipAccepted;
+        private final int threshold;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private Mode mode = Mode.UNDECIDED;
+        private boolean compressed;
+        // Container stream of a non-blocking body, null while writes are blocking
+        private ServletOutputStream nonBlockingStream;
+        private long rawBytes;
+        private long sentBytes;
+        private long contentLength = -1;
+        private OutputStream target;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        CompressingResponse(HttpServletResponse response, boolean gzipAccepted, int threshold) {
+            super(response);
+            this.gzipAccepted = gzipAccepted;
+            this.threshold = threshold;
+        }
+
+        long getRawBytes() { return rawBytes; }
+        long getSentBytes() { return sentBytes; }
+        boolean isCompressed() { return compressed; }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        CompressingResponse.this.write(new byte[]{(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] bytes, int offset, int length) throws IOException {
+                        CompressingResponse.this.write(bytes, offset, length);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        CompressingResponse.this.flush();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return nonBlockingStream == null || nonBlockingStream.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        try {
+                            CompressingResponse.this.startNonBlocking(writeListener);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                Charset charset = getCharacterEncoding() != null
+                        ? Charset.forName(getCharacterEncoding()) : StandardCharsets.ISO_8859_1;
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), charset));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            flush();
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = value != null ? Long.parseLong(value) : -1;
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            buffer.reset();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            buffer.reset();
+            contentLength = -1;
+        }
+
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            if (mode == Mode.FINISHED) {
+                throw new IOException("Response already finished");
+            }
+            if (mode == Mode.UNDECIDED) {
+                mode = gzipAccepted && isCompressible(getContentType()) ? Mode.BUFFERING : Mode.PLAIN;
+                if (mode == Mode.PLAIN) {
+                    startPlain();
+                }
+            }
+
+            rawBytes += length;
+            if (mode == Mode.BUFFERING) {
+                buffer.write(bytes, offset, length);
+                if (buffer.size() >= threshold) {
+                    startGzip();
+                }
+                return;
+            }
+            target.write(bytes, offset, length);
+        }
+
+        private void flush() throws IOException {
+            if (target != null && mode != Mode.FINISHED) {
+                target.flush();
+            }
+        }
+
+        // Completes the body, safe to call more than once
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (mode == Mode.FINISHED) {
+                return;
+            }
+            if (mode == Mode.UNDECIDED) {
+                // No body written
+                if (contentLength >= 0 && !isCommitted()) {
+                    super.setContentLengthLong(contentLength);
+                }
+                mode = Mode.FINISHED;
+                return;
+            }
+            if (mode == Mode.BUFFERING) {
+                // Below the threshold, sent as is with its exact length
+                contentLength = buffer.size();
+                startPlain();
+            }
+
+            if (target instanceof GZIPOutputStream gzip) {
+                gzip.finish();
+            }
+            // A non-blocking body is flushed by the container, a flush here could block
+            if (nonBlockingStream == null) {
+                target.flush();
+            }
+            mode = Mode.FINISHED;
+        }
+
+        /**
+         * Hands the listener to the container's stream, the body is sent uncompressed from here on
+         * anything buffered so far is written first, still in blocking mode
+         * gzip output cannot switch, the deflater would write past what isReady allowed
+         */
+        private void startNonBlocking(WriteListener writeListener) throws IOException {
+            if (mode == Mode.GZIP || mode == Mode.FINISHED) {
+                throw new IllegalStateException("Non-blocking writes requested after the body was compressed or finished");
+            }
+            if (mode != Mode.PLAIN) {
+                startPlain();
+            }
+            nonBlockingStream = getResponse().getOutputStream();
+            nonBlockingStream.setWriteListener(writeListener);
+        }
+
+        private void startPlain() throws IOException {
+            target = countingStream();
+            mode = Mode.PLAIN;
+            if (contentLength >= 0 && !isCommitted()) {
+                super.setContentLengthLong(contentLength);
+            }
+            buffer.writeTo(target);
+            buffer.reset();
+        }
+
+        private void startGzip() throws IOException {
+            super.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            // Sync flush so flushed data reaches the client instead of waiting in the deflater
+            target = new GZIPOutputStream(countingStream(), 8192, true);
+            compressed = true;
+            mode = Mode.GZIP;
+            buffer.writeTo(target);
+            buffer.reset();
+        }
+
+        private OutputStream countingStream() throws IOException {
+            ServletOutputStream real = getResponse().getOutputStream();
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    real.write(b);
+                    sentBytes++;
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    real.write(bytes, offset, length);
+                    sentBytes += length;
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    real.flush();
+                }
+            };
+        }
+    }
+}
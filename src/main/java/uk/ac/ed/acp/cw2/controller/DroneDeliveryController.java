@@ -1,21 +1,38 @@
 package uk.ac.ed.acp.cw2.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.ac.ed.acp.cw2.dto.AvailabilityTimeline;
 import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
 import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
 import uk.ac.ed.acp.cw2.service.AvailabilityService;
+import uk.ac.ed.acp.cw2.service.GeoJsonWriter;
+import uk.ac.ed.acp.cw2.service.PathEncoder;
 import uk.ac.ed.acp.cw2.service.PathPlanningService;
+import uk.ac.ed.acp.cw2.service.PlanningDeadline;
+import uk.ac.ed.acp.cw2.service.PlanningMode;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
  * CW2 Drone Delivery Endpoints:
  * POST /api/v1/queryAvailableDrones - Find drones available for multiple dispatches
+ * POST /api/v1/queryAvailableDrones/batch - Same query for many dispatch groups in one call
+ * GET /api/v1/availabilityTimeline - Weekly drone availability counts per service point and slot
  * POST /api/v1/calcDeliveryPath - Calculate optimal delivery paths with cost analysis
- * POST /api/v1/calcDeliveryPathAsGeoJson - Generate GeoJSON visualization of delivery path
+ * POST /api/v1/calcDeliveryPath/stream - Same plan as NDJSON, one DronePath per line and a totals line
+ * POST /api/v1/calcDeliveryPathAsGeoJson - Stream a GeoJSON FeatureCollection of the delivery paths
+ * queryAvailableDrones and calcDeliveryPath also read and write application/cbor (Content-Type / Accept)
  */
 @RestController
 @RequestMapping("/api/v1")
@@ -27,6 +44,9 @@ public class DroneDeliveryController {
     @Autowired
     private PathPlanningService pathPlanningService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * POST /api/v1/queryAvailableDrones
      * Find drones capable of handling all dispatches in the list
@@ -45,28 +65,151 @@ public class DroneDeliveryController {
     }
 
     /**
-     * POST /api/v1/calcDeliveryPath
+     * POST /api/v1/queryAvailableDrones/batch
+     * Runs queryAvailableDrones for every dispatch group against one fleet snapshot
+     * Returns one list of drone IDs per group, in request order
+     */
+    @PostMapping("/queryAvailableDrones/batch")
+    public ResponseEntity<List<List<String>>> queryAvailableDronesBatch(
+            @RequestBody List<List<MedDispatchRec>> groups) {
+
+        if (groups == null || groups.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+
+        return ResponseEntity.ok(availabilityService.queryAvailableDronesBatch(groups));
+    }
+
+    /**
+     * GET /api/v1/availabilityTimeline?slotMinutes=60
+     * Available, cooling and heating drone counts per service point for every slot of the week
+     * The ETag is the fleet version, If-None-Match with it gives 304 while the fleet is unchanged
+     */
+    @GetMapping("/availabilityTimeline")
+    public ResponseEntity<AvailabilityTimeline> availabilityTimeline(
+            @RequestParam(value = "slotMinutes", defaultValue = "60") int slotMinutes,
+            WebRequest request) {
+
+        AvailabilityTimeline timeline = availabilityService.availabilityTimeline(slotMinutes);
+        String eTag = "\"" + timeline.getVersion() + "-" + slotMinutes + "\"";
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(timeline);
+    }
+
+    /**
+     * POST /api/v1/calcDeliveryPath?mode=single|batched|optimal
      * Calculates optimal delivery paths considering drone constraints and no-fly zones
      * Returns cost analysis and detailed flight paths for multiple drones
+     * mode=batched chains dispatches into multi-stop tours per drone
+     * mode=optimal assigns dispatches to drones by min-cost assignment
+     * deadlineMs (or the X-Planning-Deadline-Ms header) bounds planning time,
+     * the best plan found by then is returned with partial=true
+     * format=rle (or Accept: application/vnd.ilp.rle+json) replaces every flightPath
+     * with a run-length encodedPath
      */
-    @PostMapping("/calcDeliveryPath")
+    @PostMapping(value = "/calcDeliveryPath",
+            produces = {MediaType.APPLICATION_JSON_VALUE, PathEncoder.RLE_MEDIA_TYPE,
+                    MediaType.APPLICATION_CBOR_VALUE})
     public ResponseEntity<DeliveryPathResponse> calcDeliveryPath(
-            @RequestBody List<MedDispatchRec> dispatches) {
+            @RequestBody List<MedDispatchRec> dispatches,
+            @RequestParam(value = "mode", required = false) String mode,
+            @RequestParam(value = "deadlineMs", required = false) Long deadlineMs,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestHeader(value = "X-Planning-Deadline-Ms", required = false) Long deadlineHeader,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
 
-        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(dispatches);
+        boolean runLength = runLengthRequested(format, accept);
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
+                dispatches, PlanningMode.fromParameter(mode), deadlineFrom(deadlineMs, deadlineHeader));
+
+        if (runLength) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(PathEncoder.RLE_MEDIA_TYPE))
+                    .body(PathEncoder.encode(response));
+        }
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * POST /api/v1/calcDeliveryPath/stream?mode=single|batched|optimal
+     * Streams the plan as NDJSON: every DronePath is written as one line as soon as it is
+     * planned, the last line holds totalCost, totalMoves and partial (only when true)
+     */
+    @PostMapping(value = "/calcDeliveryPath/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> calcDeliveryPathStream(
+            @RequestBody List<MedDispatchRec> dispatches,
+            @RequestParam(value = "mode", required = false) String mode,
+            @RequestParam(value = "deadlineMs", required = false) Long deadlineMs,
+            @RequestHeader(value = "X-Planning-Deadline-Ms", required = false) Long deadlineHeader) {
+
+        // Parsed up front so bad parameters still get a 400 before streaming starts
+        PlanningMode planningMode = PlanningMode.fromParameter(mode);
+        PlanningDeadline deadline = deadlineFrom(deadlineMs, deadlineHeader);
+
+        StreamingResponseBody body = output -> {
+            DeliveryPathResponse totals = pathPlanningService.streamDeliveryPath(
+                    dispatches, planningMode, deadline, dronePath -> writeLine(output, dronePath));
+
+            ObjectNode trailer = objectMapper.createObjectNode();
+            trailer.put("totalCost", totals.getTotalCost());
+            trailer.put("totalMoves", totals.getTotalMoves());
+            if (totals.isPartial()) {
+                trailer.put("partial", true);
+            }
+            writeLine(output, trailer);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * POST /api/v1/calcDeliveryPathAsGeoJson
-     * Generate GeoJSON representation of delivery path for single drone scenarios
+     * Plans the dispatches and streams a GeoJSON FeatureCollection, one LineString per drone
      */
     @PostMapping(value = "/calcDeliveryPathAsGeoJson",
             produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> calcDeliveryPathAsGeoJson(
+    public ResponseEntity<StreamingResponseBody> calcDeliveryPathAsGeoJson(
             @RequestBody List<MedDispatchRec> dispatches) {
 
-        String geoJson = pathPlanningService.calcDeliveryPathAsGeoJson(dispatches);
-        return ResponseEntity.ok(geoJson);
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(dispatches);
+        StreamingResponseBody body = output -> GeoJsonWriter.write(response, output);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    // Query parameter wins over the header, neither means no deadline
+    private PlanningDeadline deadlineFrom(Long deadlineMs, Long deadlineHeader) {
+        return PlanningDeadline.fromMillis(deadlineMs != null ? deadlineMs : deadlineHeader);
+    }
+
+    // format=rle or an Accept header naming the run-length media type, other formats are rejected
+    private boolean runLengthRequested(String format, String accept) {
+        if (format != null && !format.isBlank()) {
+            if (format.equalsIgnoreCase(PathEncoder.RLE_FORMAT)) {
+                return true;
+            }
+            if (!format.equalsIgnoreCase("json")) {
+                throw new IllegalArgumentException("Unknown format: " + format);
+            }
+            return false;
+        }
+        return accept != null && accept.contains(PathEncoder.RLE_MEDIA_TYPE);
+    }
+
+    // Writes one NDJSON line and flushes it so the client sees it straight away
+    private void writeLine(OutputStream output, Object value) {
+        try {
+            output.write(objectMapper.writeValueAsBytes(value));
+            output.write('\n');
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,78 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.dto.PlanDelta;
+import uk.ac.ed.acp.cw2.service.PlanSessionService;
+
+import java.util.List;
+
+/**
+ * Plan Session Endpoints (incremental re-planning):
+ * POST /api/v1/plans - Create a plan session from an optional list of dispatches
+ * POST /api/v1/plans/{planId}/dispatches - Add one dispatch, returns the delta
+ * DELETE /api/v1/plans/{planId}/dispatches/{dispatchId} - Cancel one dispatch, returns the delta
+ * GET /api/v1/plans/{planId} - Current plan in the calcDeliveryPath format
+ * DELETE /api/v1/plans/{planId} - Drop the session
+ * POST /api/v1/plans/refreshRestrictedAreas - Re-plan legs entering new or changed no-fly zones
+ * Unknown or expired plans and unknown dispatches return 404, creating beyond the session limit returns 503
+ */
+@RestController
+@RequestMapping("/api/v1/plans")
+public class PlanSessionController {
+
+    @Autowired
+    private PlanSessionService planSessionService;
+
+    @PostMapping
+    public ResponseEntity<PlanDelta> createPlan(
+            @RequestBody(required = false) List<MedDispatchRec> dispatches) {
+        return ResponseEntity.ok(planSessionService.createPlan(dispatches));
+    }
+
+    @PostMapping("/{planId}/dispatches")
+    public ResponseEntity<PlanDelta> addDispatch(@PathVariable String planId,
+                                                 @RequestBody MedDispatchRec dispatch) {
+        PlanDelta delta = planSessionService.addDispatch(planId, dispatch);
+        if (delta == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(delta);
+    }
+
+    @DeleteMapping("/{planId}/dispatches/{dispatchId}")
+    public ResponseEntity<PlanDelta> removeDispatch(@PathVariable String planId,
+                                                    @PathVariable int dispatchId) {
+        PlanDelta delta = planSessionService.removeDispatch(planId, dispatchId);
+        if (delta == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(delta);
+    }
+
+    @GetMapping("/{planId}")
+    public ResponseEntity<DeliveryPathResponse> getPlan(@PathVariable String planId) {
+        DeliveryPathResponse plan = planSessionService.getPlan(planId);
+        if (plan == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(plan);
+    }
+
+    @PostMapping("/refreshRestrictedAreas")
+    public ResponseEntity<List<PlanDelta>> refreshRestrictedAreas() {
+        return ResponseEntity.ok(planSessionService.refreshRestrictedAreas());
+    }
+
+    @DeleteMapping("/{planId}")
+    public ResponseEntity<Void> deletePlan(@PathVariable String planId) {
+        if (!planSessionService.deletePlan(planId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,80 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.dto.PlanningJobStatus;
+import uk.ac.ed.acp.cw2.service.PlanningJobService;
+import uk.ac.ed.acp.cw2.service.PlanningMode;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous Planning Endpoints:
+ * POST /api/v1/jobs?mode=single|batched|optimal - Queue a calcDeliveryPath job, 202 with the job id
+ * GET /api/v1/jobs/{jobId}?waitMs=n - Job status and progress, waits up to n ms for completion
+ * without holding a request thread
+ * GET /api/v1/jobs/{jobId}/result - DeliveryPathResponse of a finished job (409 while still running,
+ * 500 with the recorded error for a failed job)
+ * Unknown or expired jobs return 404, a full job queue returns 503
+ */
+@RestController
+@RequestMapping("/api/v1/jobs")
+public class PlanningJobController {
+
+    // Async timeout of a long-poll, above the longest wait so the poll always answers itself
+    private static final long STATUS_TIMEOUT_MILLIS = PlanningJobService.MAX_WAIT_MILLIS + 5_000;
+
+    @Autowired
+    private PlanningJobService planningJobService;
+
+    @PostMapping
+    public ResponseEntity<PlanningJobStatus> submit(
+            @RequestBody List<MedDispatchRec> dispatches,
+            @RequestParam(value = "mode", required = false) String mode) {
+        PlanningJobStatus status = planningJobService.submit(dispatches, PlanningMode.fromParameter(mode));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+    }
+
+    @GetMapping("/{jobId}")
+    public DeferredResult<ResponseEntity<PlanningJobStatus>> status(
+            @PathVariable String jobId,
+            @RequestParam(value = "waitMs", defaultValue = "0") long waitMs) {
+        DeferredResult<ResponseEntity<PlanningJobStatus>> response = new DeferredResult<>(STATUS_TIMEOUT_MILLIS);
+
+        CompletableFuture<PlanningJobStatus> status = planningJobService.getStatus(jobId, waitMs);
+        if (status == null) {
+            response.setResult(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        } else {
+            status.thenAccept(current -> response.setResult(ResponseEntity.ok(current)));
+        }
+        return response;
+    }
+
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<?> result(@PathVariable String jobId) {
+        DeliveryPathResponse result = planningJobService.getResult(jobId);
+        if (result != null) {
+            return ResponseEntity.ok(result);
+        }
+
+        PlanningJobStatus status = planningJobService.getStatus(jobId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (PlanningJobService.JobState.FAILED.name().equals(status.getStatus())) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Planning job failed");
+            error.put("message", status.getError());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
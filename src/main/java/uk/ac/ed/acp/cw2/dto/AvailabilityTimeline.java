@@ -0,0 +1,80 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Weekly fleet capacity forecast:
+ * the week from Monday 00:00 is cut into slots of slotMinutes, slot i starts at i * slotMinutes
+ * per service point and slot the number of stationed drones available at the start of the slot,
+ * in total and of those with cooling and with heating
+ * version is the fleet snapshot the counts were computed from
+ */
+public class AvailabilityTimeline {
+
+    @JsonProperty("version")
+    private String version;
+
+    @JsonProperty("slotMinutes")
+    private Integer slotMinutes;
+
+    @JsonProperty("servicePoints")
+    private List<ServicePointSlots> servicePoints;
+
+    public AvailabilityTimeline() {}
+
+    public AvailabilityTimeline(String version, Integer slotMinutes, List<ServicePointSlots> servicePoints) {
+        this.version = version;
+        this.slotMinutes = slotMinutes;
+        this.servicePoints = servicePoints;
+    }
+
+    public String getVersion() { return version; }
+    public void setVersion(String version) { this.version = version; }
+    public Integer getSlotMinutes() { return slotMinutes; }
+    public void setSlotMinutes(Integer slotMinutes) { this.slotMinutes = slotMinutes; }
+    public List<ServicePointSlots> getServicePoints() { return servicePoints; }
+    public void setServicePoints(List<ServicePointSlots> servicePoints) { this.servicePoints = servicePoints; }
+
+    // Counts of one service point, one entry per slot
+    public static class ServicePointSlots {
+
+        @JsonProperty("servicePointId")
+        private Integer servicePointId;
+
+        @JsonProperty("name")
+        private String name;
+
+        @JsonProperty("available")
+        private int[] available;
+
+        @JsonProperty("cooling")
+        private int[] cooling;
+
+        @JsonProperty("heating")
+        private int[] heating;
+
+        public ServicePointSlots() {}
+
+        public ServicePointSlots(Integer servicePointId, String name,
+                                 int[] available, int[] cooling, int[] heating) {
+            this.servicePointId = servicePointId;
+            this.name = name;
+            this.available = available;
+            this.cooling = cooling;
+            this.heating = heating;
+        }
+
+        public Integer getServicePointId() { return servicePointId; }
+        public void setServicePointId(Integer servicePointId) { this.servicePointId = servicePointId; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public int[] getAvailable() { return available; }
+        public void setAvailable(int[] available) { this.available = available; }
+        public int[] getCooling() { return cooling; }
+        public void setCooling(int[] cooling) { this.cooling = cooling; }
+        public int[] getHeating() { return heating; }
+        public void setHeating(int[] heating) { this.heating = heating; }
+    }
+}
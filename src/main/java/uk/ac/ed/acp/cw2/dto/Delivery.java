@@ -1,5 +1,6 @@
 package uk.ac.ed.acp.cw2.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import uk.ac.ed.acp.cw2.model.LngLat;
 import java.util.List;
@@ -10,8 +11,14 @@ public class Delivery {
     private Integer deliveryId;
 
     @JsonProperty("flightPath")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<LngLat> flightPath;
 
+    // Only set in the run-length response format, which replaces flightPath
+    @JsonProperty("encodedPath")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private RunLengthPath encodedPath;
+
     public Delivery() {}
 
     public Delivery(Integer deliveryId, List<LngLat> flightPath) {
@@ -23,4 +30,6 @@ public class Delivery {
     public void setDeliveryId(Integer deliveryId) { this.deliveryId = deliveryId; }
     public List<LngLat> getFlightPath() { return flightPath; }
     public void setFlightPath(List<LngLat> flightPath) { this.flightPath = flightPath; }
+    public RunLengthPath getEncodedPath() { return encodedPath; }
+    public void setEncodedPath(RunLengthPath encodedPath) { this.encodedPath = encodedPath; }
 }
@@ -1,5 +1,6 @@
 package uk.ac.ed.acp.cw2.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 
@@ -14,6 +15,11 @@ public class DeliveryPathResponse {
     @JsonProperty("dronePaths")
     private List<DronePath> dronePaths;
 
+    // Set when the request deadline stopped planning early, omitted from JSON otherwise
+    @JsonProperty("partial")
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean partial;
+
     public DeliveryPathResponse() {}
 
     public DeliveryPathResponse(Double totalCost, Integer totalMoves, List<DronePath> dronePaths) {
@@ -28,4 +34,6 @@ public class DeliveryPathResponse {
     public void setTotalMoves(Integer totalMoves) { this.totalMoves = totalMoves; }
     public List<DronePath> getDronePaths() { return dronePaths; }
     public void setDronePaths(List<DronePath> dronePaths) { this.dronePaths = dronePaths; }
+    public boolean isPartial() { return partial; }
+    public void setPartial(boolean partial) { this.partial = partial; }
 }
@@ -1,5 +1,6 @@
 package uk.ac.ed.acp.cw2.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import uk.ac.ed.acp.cw2.model.LngLat;
 
@@ -10,6 +11,7 @@ import java.time.LocalTime;
  * Medicine dispatch record representing a delivery order
  * Required fields: id, requirements.capacity
  * Optional fields: date, time, cooling, heating, maxCost
+ * date and time are parsed once on first use and cached until they are set again
  */
 public class MedDispatchRec {
 
@@ -28,6 +30,13 @@ public class MedDispatchRec {
     @JsonProperty("delivery")
     private LngLat delivery;
 
+    // Parse caches, never bound from or written to the payload
+    @JsonIgnore
+    private LocalDate localDate;
+
+    @JsonIgnore
+    private LocalTime localTime;
+
     public MedDispatchRec() {
     }
 
@@ -45,6 +54,7 @@ public class MedDispatchRec {
 
     public void setDate(String date) {
         this.date = date;
+        this.localDate = null;
     }
 
     public String getTime() {
@@ -53,6 +63,7 @@ public class MedDispatchRec {
 
     public void setTime(String time) {
         this.time = time;
+        this.localTime = null;
     }
 
     public DeliveryRequirements getRequirements() {
@@ -73,12 +84,29 @@ public class MedDispatchRec {
 
     // Parsing date string to LocalDate
     public LocalDate getLocalDate() {
-        return date != null ? LocalDate.parse(date) : null;
+        if (localDate == null && date != null) {
+            localDate = LocalDate.parse(date);
+        }
+        return localDate;
     }
 
     // Parsing time string to LocalTime
     public LocalTime getLocalTime() {
-        return time != null ? LocalTime.parse(time) : null;
+        if (localTime == null && time != null) {
+            localTime = LocalTime.parse(time);
+        }
+        return localTime;
+    }
+
+    // Seconds since Monday 00:00 of the dispatch's week, null without date or time
+    @JsonIgnore
+    public Integer getSecondOfWeek() {
+        LocalDate day = getLocalDate();
+        LocalTime at = getLocalTime();
+        if (day == null || at == null) {
+            return null;
+        }
+        return (day.getDayOfWeek().getValue() - 1) * 86_400 + at.toSecondOfDay();
     }
 
     @Override
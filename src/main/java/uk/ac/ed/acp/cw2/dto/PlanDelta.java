@@ -0,0 +1,57 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * Change of a plan session after one edit:
+ * added: new flights, one per newly planned dispatch
+ * removed: dispatch ids whose flights were dropped
+ * unplanned: dispatch ids in the session no drone can currently fly
+ * totalCost and totalMoves describe the whole plan after the edit
+ */
+public class PlanDelta {
+
+    @JsonProperty("planId")
+    private String planId;
+
+    @JsonProperty("added")
+    private List<DronePath> added;
+
+    @JsonProperty("removed")
+    private List<Integer> removed;
+
+    @JsonProperty("unplanned")
+    private List<Integer> unplanned;
+
+    @JsonProperty("totalCost")
+    private Double totalCost;
+
+    @JsonProperty("totalMoves")
+    private Integer totalMoves;
+
+    public PlanDelta() {}
+
+    public PlanDelta(String planId, List<DronePath> added, List<Integer> removed,
+                     List<Integer> unplanned, Double totalCost, Integer totalMoves) {
+        this.planId = planId;
+        this.added = added;
+        this.removed = removed;
+        this.unplanned = unplanned;
+        this.totalCost = totalCost;
+        this.totalMoves = totalMoves;
+    }
+
+    public String getPlanId() { return planId; }
+    public void setPlanId(String planId) { this.planId = planId; }
+    public List<DronePath> getAdded() { return added; }
+    public void setAdded(List<DronePath> added) { this.added = added; }
+    public List<Integer> getRemoved() { return removed; }
+    public void setRemoved(List<Integer> removed) { this.removed = removed; }
+    public List<Integer> getUnplanned() { return unplanned; }
+    public void setUnplanned(List<Integer> unplanned) { this.unplanned = unplanned; }
+    public Double getTotalCost() { return totalCost; }
+    public void setTotalCost(Double totalCost) { this.totalCost = totalCost; }
+    public Integer getTotalMoves() { return totalMoves; }
+    public void setTotalMoves(Integer totalMoves) { this.totalMoves = totalMoves; }
+}
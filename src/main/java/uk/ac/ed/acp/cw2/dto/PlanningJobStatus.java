@@ -0,0 +1,51 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Status of an asynchronous planning job:
+ * status is QUEUED, RUNNING, DONE or FAILED
+ * progress counts planned date groups out of totalGroups (0 until the job starts)
+ * error is only present for FAILED jobs
+ */
+public class PlanningJobStatus {
+
+    @JsonProperty("jobId")
+    private String jobId;
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("plannedGroups")
+    private Integer plannedGroups;
+
+    @JsonProperty("totalGroups")
+    private Integer totalGroups;
+
+    @JsonProperty("error")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
+
+    public PlanningJobStatus() {}
+
+    public PlanningJobStatus(String jobId, String status, Integer plannedGroups,
+                             Integer totalGroups, String error) {
+        this.jobId = jobId;
+        this.status = status;
+        this.plannedGroups = plannedGroups;
+        this.totalGroups = totalGroups;
+        this.error = error;
+    }
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public Integer getPlannedGroups() { return plannedGroups; }
+    public void setPlannedGroups(Integer plannedGroups) { this.plannedGroups = plannedGroups; }
+    public Integer getTotalGroups() { return totalGroups; }
+    public void setTotalGroups(Integer totalGroups) { this.totalGroups = totalGroups; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,39 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Run-length encoded flight path:
+ * start is [lng, lat] of the first point
+ * runs are [code, count] pairs, code 0-15 is a compass move of 22.5° * code,
+ * 16 repeats the current position (hover), 17 jumps to the next entry of jumps
+ */
+public class RunLengthPath {
+
+    public static final int HOVER = 16;
+    public static final int JUMP = 17;
+
+    @JsonProperty("start")
+    private double[] start;
+
+    @JsonProperty("runs")
+    private int[][] runs;
+
+    @JsonProperty("jumps")
+    private double[][] jumps;
+
+    public RunLengthPath() {}
+
+    public RunLengthPath(double[] start, int[][] runs, double[][] jumps) {
+        this.start = start;
+        this.runs = runs;
+        this.jumps = jumps;
+    }
+
+    public double[] getStart() { return start; }
+    public void setStart(double[] start) { this.start = start; }
+    public int[][] getRuns() { return runs; }
+    public void setRuns(int[][] runs) { this.runs = runs; }
+    public double[][] getJumps() { return jumps; }
+    public void setJumps(double[][] jumps) { this.jumps = jumps; }
+}
@@ -0,0 +1,173 @@
+package uk.ac.ed.acp.cw2.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact flight path used by the planner instead of a list of LngLat objects:
+ * coordinates are packed into one double[] (lng, lat per point)
+ * every point records how it was reached: START, a compass heading index 0-15
+ * (multiples of 22.5°), HOVER (same position as before) or JUMP (any other move)
+ * altitudes are only stored once a point has one
+ * get(i) creates a LngLat on demand, the serializer writes straight from the arrays
+ * and produces the same JSON as a List<LngLat>
+ */
+@JsonSerialize(using = FlightPath.Serializer.class)
+public class FlightPath extends AbstractList<LngLat> {
+
+    public static final byte START = -1;
+    public static final byte HOVER = 16;
+    public static final byte JUMP = 17;
+
+    private static final double DEGREES_PER_HEADING = 22.5;
+    private static final int NO_ALT = Integer.MIN_VALUE;
+
+    private double[] coordinates;
+    private byte[] headings;
+    private int[] altitudes;
+    private int size;
+
+    public FlightPath() {
+        this(16);
+    }
+
+    public FlightPath(int capacity) {
+        coordinates = new double[Math.max(capacity, 1) * 2];
+        headings = new byte[Math.max(capacity, 1)];
+    }
+
+    // Copies any list of points, headings are derived as for add
+    public static FlightPath copyOf(List<LngLat> points) {
+        if (points instanceof FlightPath flightPath) {
+            FlightPath copy = new FlightPath(flightPath.size);
+            copy.size = flightPath.size;
+            System.arraycopy(flightPath.coordinates, 0, copy.coordinates, 0, flightPath.size * 2);
+            System.arraycopy(flightPath.headings, 0, copy.headings, 0, flightPath.size);
+            if (flightPath.altitudes != null) {
+                copy.altitudes = Arrays.copyOf(flightPath.altitudes, copy.headings.length);
+            }
+            return copy;
+        }
+
+        FlightPath copy = new FlightPath(points.size());
+        copy.addAll(points);
+        return copy;
+    }
+
+    // Appends a point, recorded as HOVER when it repeats the last point and JUMP otherwise
+    @Override
+    public boolean add(LngLat point) {
+        byte heading;
+        if (size == 0) {
+            heading = START;
+        } else if (point.getLng() == lngAt(size - 1) && point.getLat() == latAt(size - 1)) {
+            heading = HOVER;
+        } else {
+            heading = JUMP;
+        }
+        append(point, heading);
+        return true;
+    }
+
+    // Appends a point reached by one move in the given compass direction
+    public void addMove(LngLat point, double angle) {
+        append(point, (byte) (Math.round(angle / DEGREES_PER_HEADING) % 16));
+    }
+
+    @Override
+    public LngLat get(int index) {
+        checkIndex(index);
+        return new LngLat(coordinates[index * 2], coordinates[index * 2 + 1], altAt(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public double lngAt(int index) {
+        return coordinates[index * 2];
+    }
+
+    public double latAt(int index) {
+        return coordinates[index * 2 + 1];
+    }
+
+    public Integer altAt(int index) {
+        return altitudes == null || altitudes[index] == NO_ALT ? null : altitudes[index];
+    }
+
+    // How the point at index was reached: START, 0-15, HOVER or JUMP
+    public byte headingAt(int index) {
+        checkIndex(index);
+        return headings[index];
+    }
+
+    private void append(LngLat point, byte heading) {
+        if (size == headings.length) {
+            int capacity = headings.length * 2;
+            coordinates = Arrays.copyOf(coordinates, capacity * 2);
+            headings = Arrays.copyOf(headings, capacity);
+            if (altitudes != null) {
+                altitudes = Arrays.copyOf(altitudes, capacity);
+            }
+        }
+
+        if (point.getAlt() != null && altitudes == null) {
+            altitudes = new int[headings.length];
+            Arrays.fill(altitudes, NO_ALT);
+        }
+        if (altitudes != null) {
+            altitudes[size] = point.getAlt() != null ? point.getAlt() : NO_ALT;
+        }
+
+        coordinates[size * 2] = point.getLng();
+        coordinates[size * 2 + 1] = point.getLat();
+        headings[size] = heading;
+        size++;
+        modCount++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    // Writes the points like List<LngLat> would, without creating LngLat objects
+    public static class Serializer extends StdSerializer<FlightPath> {
+
+        public Serializer() {
+            super(FlightPath.class);
+        }
+
+        @Override
+        public void serialize(FlightPath path, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartArray(path, path.size);
+            for (int i = 0; i < path.size; i++) {
+                double lng = path.lngAt(i);
+                double lat = path.latAt(i);
+                gen.writeStartObject();
+                gen.writeBooleanField("valid", Double.isFinite(lng) && Double.isFinite(lat));
+                gen.writeNumberField("lng", lng);
+                gen.writeNumberField("lat", lat);
+                Integer alt = path.altAt(i);
+                if (alt != null) {
+                    gen.writeNumberField("alt", alt);
+                } else {
+                    gen.writeNullField("alt");
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package uk.ac.ed.acp.cw2.service;
+
+import java.util.Arrays;
+
+/**
+ * Provides static utility methods for min-cost assignment (Hungarian algorithm):
+ * rows are jobs, columns are workers, each row gets at most one column and vice versa
+ * costs are a primitive matrix, INFEASIBLE marks pairs that must never be chosen
+ * runs in O(n² · m) time with O(n + m) extra memory besides the matrix
+ */
+public class AssignmentSolver {
+
+    // Marker for pairs that cannot be assigned, large but finite so potentials stay exact
+    public static final double INFEASIBLE = 1e9;
+
+    private AssignmentSolver() {
+    }
+
+    /**
+     * Solves the assignment problem for a rows × columns cost matrix.
+     * Returns for every row the chosen column, or -1 if the row could only be
+     * given an INFEASIBLE pair (or there were more rows than columns).
+     */
+    public static int[] solve(double[][] costs) {
+        int rows = costs.length;
+        if (rows == 0) {
+            return new int[0];
+        }
+
+        // Extra columns are dummies so every row can be placed even if rows > columns
+        int realColumns = costs[0].length;
+        int columns = Math.max(rows, realColumns);
+
+        // 1-indexed potentials and matching, column 0 is the virtual start of each search
+        double[] rowPotential = new double[rows + 1];
+        double[] columnPotential = new double[columns + 1];
+        int[] rowOfColumn = new int[columns + 1];
+        int[] previousColumn = new int[columns + 1];
+        double[] minSlack = new double[columns + 1];
+        boolean[] visited = new boolean[columns + 1];
+
+        for (int row = 1; row <= rows; row++) {
+            rowOfColumn[0] = row;
+            int column = 0;
+            Arrays.fill(minSlack, Double.MAX_VALUE);
+            Arrays.fill(visited, false);
+
+            do {
+                visited[column] = true;
+                int currentRow = rowOfColumn[column];
+                double delta = Double.MAX_VALUE;
+                int nextColumn = 0;
+
+                for (int j = 1; j <= columns; j++) {
+                    if (visited[j]) {
+                        continue;
+                    }
+
+                    double cost = cost(costs, currentRow - 1, j - 1, realColumns);
+                    double slack = cost - rowPotential[currentRow] - columnPotential[j];
+                    if (slack < minSlack[j]) {
+                        minSlack[j] = slack;
+                        previousColumn[j] = column;
+                    }
+                    if (minSlack[j] < delta) {
+                        delta = minSlack[j];
+                        nextColumn = j;
+                    }
+                }
+
+                for (int j = 0; j <= columns; j++) {
+                    if (visited[j]) {
+                        rowPotential[rowOfColumn[j]] += delta;
+                        columnPotential[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+
+                column = nextColumn;
+            } while (rowOfColumn[column] != 0);
+
+            // Flips the augmenting path back to the start
+            do {
+                int previous = previousColumn[column];
+                rowOfColumn[column] = rowOfColumn[previous];
+                column = previous;
+            } while (column != 0);
+        }
+
+        int[] assignment = new int[rows];
+        Arrays.fill(assignment, -1);
+        for (int j = 1; j <= realColumns; j++) {
+            int row = rowOfColumn[j];
+            if (row != 0 && costs[row - 1][j - 1] < INFEASIBLE) {
+                assignment[row - 1] = j - 1;
+            }
+        }
+
+        return assignment;
+    }
+
+    private static double cost(double[][] costs, int row, int column, int realColumns) {
+        return column < realColumns ? Math.min(costs[row][column], INFEASIBLE) : INFEASIBLE;
+    }
+}
@@ -4,15 +4,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.dto.AvailabilityTimeline;
 import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
 import uk.ac.ed.acp.cw2.model.*;
 
-import java.time.DayOfWeek;
-import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drone availability for dispatches:
+ * works on a FleetSnapshot, which is reused while the ILP data keeps exactly the same values
+ * candidates are a BitSet of drone ordinals narrowed in place dispatch by dispatch
+ * date/time availability is one AND with the snapshot's minute index per dispatch
+ * cooling, heating and capacity are ANDs with the snapshot's capability BitSets,
+ * the result of those per requirement shape is memoised in the snapshot
+ * maxCost is estimated for the remaining drones from the snapshot's primitive cost arrays
+ */
 @Service
 public class AvailabilityService {
 
@@ -20,6 +31,12 @@ public class AvailabilityService {
 
     private final IlpClientService ilpClientService;
 
+    private volatile FleetSnapshot snapshot;
+    private volatile TimelineCache timelines;
+
+    // Timelines by slot length, all computed from one snapshot
+    private record TimelineCache(FleetSnapshot fleet, Map<Integer, AvailabilityTimeline> bySlotMinutes) {}
+
     @Autowired
     public AvailabilityService(IlpClientService ilpClientService) {
         this.ilpClientService = ilpClientService;
@@ -33,193 +50,128 @@ public class AvailabilityService {
 
         logger.debug("Checking availability for {} dispatches", dispatches.size());
 
-        List<Drone> allDrones = ilpClientService.getDrones();
-        List<DroneForServicePoint> dronesForServicePoints = ilpClientService.getDronesForServicePoints();
-        List<ServicePoint> servicePoints = ilpClientService.getServicePoints();
+        List<String> availableDrones = availableFor(currentSnapshot(), dispatches);
+        logger.info("Found {} drones available for all dispatches", availableDrones.size());
+        return availableDrones;
+    }
 
-        // Starting with all drones and then narrowing down with each dispatch
-        List<String> candidateDrones = new ArrayList<>();
-        for (Drone drone : allDrones) {
-            candidateDrones.add(drone.getId());
+    /**
+     * Answers queryAvailableDrones for many independent dispatch groups at once:
+     * every group is AND-joined like a single query, all groups share one snapshot
+     * Result i belongs to group i, null or empty groups get an empty list
+     */
+    public List<List<String>> queryAvailableDronesBatch(List<List<MedDispatchRec>> groups) {
+        if (groups == null || groups.isEmpty()) {
+            logger.debug("No dispatch groups provided");
+            return List.of();
         }
 
-        // Processing each dispatch
-        for (MedDispatchRec dispatch : dispatches) {
-            candidateDrones = filterDronesForDispatch(
-                    candidateDrones, dispatch, allDrones,
-                    dronesForServicePoints, servicePoints
-            );
-
-            // No drones left so early exit
-            if (candidateDrones.isEmpty()) {
-                logger.debug("No drones can handle all dispatches");
-                return List.of();
-            }
+        FleetSnapshot fleet = currentSnapshot();
+        List<List<String>> results = new ArrayList<>(groups.size());
+        for (List<MedDispatchRec> group : groups) {
+            results.add(group == null || group.isEmpty() ? List.of() : availableFor(fleet, group));
         }
 
-        logger.info("Found {} drones available for all dispatches", candidateDrones.size());
-        return candidateDrones;
+        logger.info("Answered {} dispatch groups", groups.size());
+        return results;
     }
 
-    private List<String> filterDronesForDispatch(
-            List<String> candidates,
-            MedDispatchRec dispatch,
-            List<Drone> allDrones,
-            List<DroneForServicePoint> dronesForServicePoints,
-            List<ServicePoint> servicePoints) {
-
-        List<String> suitable = new ArrayList<>();
-
-        for (String droneId : candidates) {
-            Drone drone = findDroneById(droneId, allDrones);
-            if (drone == null) continue;
-
-            if (canHandleDispatch(drone, dispatch, dronesForServicePoints, servicePoints)) {
-                suitable.add(droneId);
-            }
-        }
-
-        return suitable;
+    /**
+     * Eligible drones of every dispatch on its own, all against one snapshot:
+     * what queryAvailableDrones(List.of(dispatch)) gives, for a whole planning request at once
+     */
+    public EligibilityMatrix eligibilityMatrix(List<MedDispatchRec> dispatches) {
+        return eligibilityMatrix(dispatches, ilpClientService.getDrones(),
+                ilpClientService.getDronesForServicePoints(), ilpClientService.getServicePoints());
     }
 
-    private boolean canHandleDispatch(Drone drone, MedDispatchRec dispatch,
-                                      List<DroneForServicePoint> dronesForServicePoints,
-                                      List<ServicePoint> servicePoints) {
-        DroneCapability capability = drone.getCapability();
-
-        if (capability == null) {
-            return false;
-        }
-
-        // Checking capacity
-        if (dispatch.getRequirements() != null &&
-                dispatch.getRequirements().getCapacity() != null) {
-            if (capability.getCapacity() < dispatch.getRequirements().getCapacity()) {
-                logger.debug("Drone {} fails capacity check", drone.getId());
-                return false;
+    // eligibilityMatrix against ILP data the caller already fetched, so it is not fetched twice
+    public EligibilityMatrix eligibilityMatrix(List<MedDispatchRec> dispatches, List<Drone> drones,
+                                               List<DroneForServicePoint> dronesForServicePoints,
+                                               List<ServicePoint> servicePoints) {
+        FleetSnapshot fleet = snapshotOf(drones, dronesForServicePoints, servicePoints);
+        Map<MedDispatchRec, BitSet> rows = new IdentityHashMap<>();
+        if (dispatches != null) {
+            for (MedDispatchRec dispatch : dispatches) {
+                if (!rows.containsKey(dispatch)) {
+                    BitSet row = new BitSet(fleet.size());
+                    row.set(0, fleet.size());
+                    fleet.retainEligible(row, dispatch);
+                    rows.put(dispatch, row);
+                }
             }
         }
 
-        // Check cooling requirement
-        boolean needsCooling = dispatch.getRequirements() != null &&
-                Boolean.TRUE.equals(dispatch.getRequirements().getCooling());
-
-        // Check heating requirement
-        boolean needsHeating = dispatch.getRequirements() != null &&
-                Boolean.TRUE.equals(dispatch.getRequirements().getHeating());
+        logger.debug("Evaluated eligibility of {} dispatches", rows.size());
+        return new EligibilityMatrix(fleet.droneIds(), rows);
+    }
 
-        if (needsCooling && needsHeating) {
-            if (!Boolean.TRUE.equals(capability.getCooling()) ||
-                    !Boolean.TRUE.equals(capability.getHeating())) {
-                logger.debug("Drone {} needs both cooling and heating", drone.getId());
-                return false;
-            }
-        } else if (needsCooling) {
-            if (!Boolean.TRUE.equals(capability.getCooling())) {
-                logger.debug("Drone {} lacks cooling", drone.getId());
-                return false;
-            }
-        } else if (needsHeating) {
-            if (!Boolean.TRUE.equals(capability.getHeating())) {
-                logger.debug("Drone {} lacks heating", drone.getId());
-                return false;
-            }
-        }
+    // Drones of the snapshot able to handle every dispatch, in ordinal order
+    private List<String> availableFor(FleetSnapshot fleet, List<MedDispatchRec> dispatches) {
+        // Starting with all drones and then narrowing down with each dispatch
+        BitSet candidates = new BitSet(fleet.size());
+        candidates.set(0, fleet.size());
 
-        // Checking date/time availability
-        if (dispatch.getDate() != null && dispatch.getTime() != null) {
-            LocalDate date = dispatch.getLocalDate();
-            LocalTime time = dispatch.getLocalTime();
+        // Processing each dispatch
+        for (MedDispatchRec dispatch : dispatches) {
+            fleet.retainEligible(candidates, dispatch);
 
-            if (!isDroneAvailable(drone.getId(), date, time, dronesForServicePoints)) {
-                logger.debug("Drone {} not available at {} {}", drone.getId(), date, time);
-                return false;
+            // No drones left so early exit
+            if (candidates.isEmpty()) {
+                logger.debug("No drones can handle all dispatches");
+                return List.of();
             }
         }
 
-        // Checking maxCost
-        if (dispatch.getRequirements() != null &&
-                dispatch.getRequirements().getMaxCost() != null) {
-
-            ServicePoint servicePoint = findServicePointForDrone(
-                    drone.getId(), servicePoints, dronesForServicePoints);
-
-            if (servicePoint != null && dispatch.getDelivery() != null) {
-                double estimatedCost = estimateDeliveryCost(
-                        drone, servicePoint.getLocation(), dispatch.getDelivery());
-
-                if (estimatedCost > dispatch.getRequirements().getMaxCost()) {
-                    logger.debug("Drone {} exceeds maxCost: {} > {}",
-                            drone.getId(), estimatedCost,
-                            dispatch.getRequirements().getMaxCost());
-                    return false;
-                }
-            }
+        List<String> availableDrones = new ArrayList<>(candidates.cardinality());
+        for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+            availableDrones.add(fleet.drone(ordinal).getId());
         }
-
-        return true;
-    }
-
-    private double estimateDeliveryCost(Drone drone, LngLat servicePoint, LngLat delivery) {
-        double distance = DroneNavigation.euclideanDistance(servicePoint, delivery);
-        double estimatedMoves = (distance * 2) / DroneNavigation.STEP;
-
-        DroneCapability cap = drone.getCapability();
-        return cap.getCostInitial() + cap.getCostFinal()
-                + estimatedMoves * cap.getCostPerMove();
+        return availableDrones;
     }
 
-    private boolean isDroneAvailable(String droneId, LocalDate date, LocalTime time,
-                                     List<DroneForServicePoint> dronesForServicePoints) {
-        if (date == null || time == null) {
-            return true;
+    /**
+     * Weekly capacity forecast per service point in slots of slotMinutes
+     * Cached per snapshot, so polling an unchanged fleet only costs comparing its inputs
+     * slotMinutes must be at least 15 and divide a day
+     */
+    public AvailabilityTimeline availabilityTimeline(int slotMinutes) {
+        if (slotMinutes < 15 || FleetSnapshot.SECONDS_PER_DAY % (slotMinutes * 60) != 0) {
+            throw new IllegalArgumentException("slotMinutes must be at least 15 and divide a day: " + slotMinutes);
         }
 
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-
-        for (DroneForServicePoint dfsp : dronesForServicePoints) {
-            for (DroneForServicePoint.DroneAvailability da : dfsp.getDrones()) {
-                if (!da.getId().equals(droneId)) {
-                    continue;
-                }
-
-                for (DayAvailability availability : da.getAvailability()) {
-                    if (availability.getDayOfWeekEnum().equals(dayOfWeek)) {
-                        LocalTime fromTime = availability.getFromTime();
-                        LocalTime untilTime = availability.getUntilTime();
+        List<DroneForServicePoint> dronesForServicePoints = ilpClientService.getDronesForServicePoints();
+        List<ServicePoint> servicePoints = ilpClientService.getServicePoints();
+        FleetSnapshot fleet = snapshotOf(ilpClientService.getDrones(), dronesForServicePoints, servicePoints);
 
-                        if (!time.isBefore(fromTime) && time.isBefore(untilTime)) {
-                            return true;
-                        }
-                    }
-                }
-            }
+        TimelineCache cache = timelines;
+        if (cache == null || cache.fleet() != fleet) {
+            cache = new TimelineCache(fleet, new ConcurrentHashMap<>());
+            timelines = cache;
         }
+        return cache.bySlotMinutes().computeIfAbsent(slotMinutes,
+                minutes -> TimelineBuilder.build(fleet, dronesForServicePoints, servicePoints, minutes));
+    }
 
-        return false;
+    // Snapshot of the current ILP data, rebuilt unless its exact values are unchanged
+    public FleetSnapshot currentSnapshot() {
+        return snapshotOf(ilpClientService.getDrones(),
+                ilpClientService.getDronesForServicePoints(),
+                ilpClientService.getServicePoints());
     }
 
-    private ServicePoint findServicePointForDrone(String droneId,
-                                                  List<ServicePoint> servicePoints,
-                                                  List<DroneForServicePoint> dronesForServicePoints) {
-        for (DroneForServicePoint dfsp : dronesForServicePoints) {
-            boolean hasDrone = dfsp.getDrones().stream()
-                    .anyMatch(da -> da.getId().equals(droneId));
-
-            if (hasDrone) {
-                return servicePoints.stream()
-                        .filter(sp -> sp.getId().equals(dfsp.getServicePointId()))
-                        .findFirst()
-                        .orElse(null);
-            }
+    private FleetSnapshot snapshotOf(List<Drone> drones,
+                                     List<DroneForServicePoint> dronesForServicePoints,
+                                     List<ServicePoint> servicePoints) {
+        FleetSnapshot cached = snapshot;
+        if (cached != null && cached.inputs().equals(
+                FleetSnapshot.inputs(drones, dronesForServicePoints, servicePoints))) {
+            return cached;
         }
-        return null;
-    }
 
-    private Drone findDroneById(String droneId, List<Drone> drones) {
-        return drones.stream()
-                .filter(d -> d.getId().equals(droneId))
-                .findFirst()
-                .orElse(null);
+        FleetSnapshot built = FleetSnapshot.build(drones, dronesForServicePoints, servicePoints);
+        snapshot = built;
+        logger.debug("Built fleet snapshot {} with {} drones", built.version(), built.size());
+        return built;
     }
 }
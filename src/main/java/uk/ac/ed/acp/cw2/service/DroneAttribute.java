@@ -0,0 +1,55 @@
+package uk.ac.ed.acp.cw2.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the drone attributes queries can name, with their JSON names and types:
+ * capability fields are missing when the drone has no capability
+ * capability itself only exists as an object, so it compares as the text "" when present
+ * the values live in DroneColumns
+ */
+public enum DroneAttribute {
+
+    COOLING("cooling", Kind.BOOLEAN),
+    HEATING("heating", Kind.BOOLEAN),
+    CAPACITY("capacity", Kind.NUMBER),
+    MAX_MOVES("maxMoves", Kind.NUMBER),
+    COST_PER_MOVE("costPerMove", Kind.NUMBER),
+    COST_INITIAL("costInitial", Kind.NUMBER),
+    COST_FINAL("costFinal", Kind.NUMBER),
+    ID("id", Kind.TEXT),
+    NAME("name", Kind.TEXT),
+    CAPABILITY("capability", Kind.TEXT);
+
+    public enum Kind { NUMBER, BOOLEAN, TEXT }
+
+    private static final Map<String, DroneAttribute> BY_NAME = new HashMap<>();
+
+    static {
+        for (DroneAttribute attribute : values()) {
+            BY_NAME.put(attribute.jsonName, attribute);
+        }
+    }
+
+    private final String jsonName;
+    private final Kind kind;
+
+    DroneAttribute(String jsonName, Kind kind) {
+        this.jsonName = jsonName;
+        this.kind = kind;
+    }
+
+    // Attribute with the JSON name, null if drones have no such attribute
+    public static DroneAttribute byName(String jsonName) {
+        return jsonName != null ? BY_NAME.get(jsonName) : null;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+}
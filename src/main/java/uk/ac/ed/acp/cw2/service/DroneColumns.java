@@ -0,0 +1,168 @@
+package uk.ac.ed.acp.cw2.service;
+
+import uk.ac.ed.acp.cw2.model.Drone;
+import uk.ac.ed.acp.cw2.model.DroneCapability;
+
+import java.util.*;
+
+/**
+ * Column store of the drone attributes, row i is the drone with ordinal i:
+ * capacity and costs as double[], maxMoves as int[]
+ * cooling and heating as BitSets of the drones where the flag is true
+ * id and name as codes into one string dictionary, -1 when missing
+ * for every attribute a BitSet of the drones where it is present (not null)
+ * Immutable, the BitSets handed out are shared and must not be modified
+ */
+public final class DroneColumns {
+
+    private final List<Object> inputs;
+    private final int size;
+    private final double[] capacity;
+    private final double[] costPerMove;
+    private final double[] costInitial;
+    private final double[] costFinal;
+    private final int[] maxMoves;
+    private final BitSet cooling = new BitSet();
+    private final BitSet heating = new BitSet();
+    private final int[] idCodes;
+    private final int[] nameCodes;
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final Map<DroneAttribute, BitSet> present = new EnumMap<>(DroneAttribute.class);
+
+    private DroneColumns(List<Drone> drones) {
+        this.inputs = inputs(drones);
+        this.size = drones.size();
+        this.capacity = new double[size];
+        this.costPerMove = new double[size];
+        this.costInitial = new double[size];
+        this.costFinal = new double[size];
+        this.maxMoves = new int[size];
+        this.idCodes = new int[size];
+        this.nameCodes = new int[size];
+        for (DroneAttribute attribute : DroneAttribute.values()) {
+            present.put(attribute, new BitSet(size));
+        }
+
+        for (int i = 0; i < size; i++) {
+            Drone drone = drones.get(i);
+            idCodes[i] = encode(DroneAttribute.ID, i, drone.getId());
+            nameCodes[i] = encode(DroneAttribute.NAME, i, drone.getName());
+
+            DroneCapability cap = drone.getCapability();
+            if (cap == null) {
+                capacity[i] = costPerMove[i] = costInitial[i] = costFinal[i] = Double.NaN;
+                continue;
+            }
+            present.get(DroneAttribute.CAPABILITY).set(i);
+            capacity[i] = store(DroneAttribute.CAPACITY, i, cap.getCapacity());
+            costPerMove[i] = store(DroneAttribute.COST_PER_MOVE, i, cap.getCostPerMove());
+            costInitial[i] = store(DroneAttribute.COST_INITIAL, i, cap.getCostInitial());
+            costFinal[i] = store(DroneAttribute.COST_FINAL, i, cap.getCostFinal());
+            if (cap.getMaxMoves() != null) {
+                present.get(DroneAttribute.MAX_MOVES).set(i);
+                maxMoves[i] = cap.getMaxMoves();
+            }
+            if (cap.getCooling() != null) {
+                present.get(DroneAttribute.COOLING).set(i);
+                cooling.set(i, cap.getCooling());
+            }
+            if (cap.getHeating() != null) {
+                present.get(DroneAttribute.HEATING).set(i);
+                heating.set(i, cap.getHeating());
+            }
+        }
+    }
+
+    public static DroneColumns of(List<Drone> drones) {
+        return new DroneColumns(drones);
+    }
+
+    // Exact values of the drones the columns are built from, equal inputs give equal columns
+    public static List<Object> inputs(List<Drone> drones) {
+        List<Object> inputs = new ArrayList<>(drones.size());
+        for (Drone drone : drones) {
+            DroneCapability cap = drone.getCapability();
+            List<Object> capability = cap == null ? null : Arrays.asList(cap.getCooling(), cap.getHeating(),
+                    cap.getCapacity(), cap.getMaxMoves(), cap.getCostPerMove(), cap.getCostInitial(), cap.getCostFinal());
+            inputs.add(Arrays.asList(drone.getId(), drone.getName(), capability));
+        }
+        return inputs;
+    }
+
+    public List<Object> inputs() {
+        return inputs;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String id(int ordinal) {
+        return idCodes[ordinal] >= 0 ? dictionary.get(idCodes[ordinal]) : null;
+    }
+
+    // Drones where the attribute is not null
+    public BitSet present(DroneAttribute attribute) {
+        return present.get(attribute);
+    }
+
+    // Column of a double attribute, NaN where missing
+    public double[] doubles(DroneAttribute attribute) {
+        return switch (attribute) {
+            case CAPACITY -> capacity;
+            case COST_PER_MOVE -> costPerMove;
+            case COST_INITIAL -> costInitial;
+            case COST_FINAL -> costFinal;
+            default -> throw new IllegalArgumentException("Not a double column: " + attribute.jsonName());
+        };
+    }
+
+    // maxMoves column, 0 where missing
+    public int[] maxMoves() {
+        return maxMoves;
+    }
+
+    // Drones where the boolean attribute is true
+    public BitSet flags(DroneAttribute attribute) {
+        return switch (attribute) {
+            case COOLING -> cooling;
+            case HEATING -> heating;
+            default -> throw new IllegalArgumentException("Not a boolean column: " + attribute.jsonName());
+        };
+    }
+
+    // Dictionary codes of a text attribute, -1 where missing
+    public int[] codes(DroneAttribute attribute) {
+        return switch (attribute) {
+            case ID -> idCodes;
+            case NAME -> nameCodes;
+            default -> throw new IllegalArgumentException("Not a coded column: " + attribute.jsonName());
+        };
+    }
+
+    // Dictionary code of the text, -1 if no drone has it
+    public int code(String text) {
+        Integer code = text != null ? codes.get(text) : null;
+        return code != null ? code : -1;
+    }
+
+    private double store(DroneAttribute attribute, int ordinal, Double value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        present.get(attribute).set(ordinal);
+        return value;
+    }
+
+    private int encode(DroneAttribute attribute, int ordinal, String text) {
+        if (text == null) {
+            return -1;
+        }
+        present.get(attribute).set(ordinal);
+        return codes.computeIfAbsent(text, t -> {
+            dictionary.add(t);
+            return dictionary.size() - 1;
+        });
+    }
+}
@@ -38,6 +38,15 @@ public class DroneNavigation {
         return distance < CLOSE_THRESHOLD;
     }
 
+    // Lower bound on the moves needed before a is close to b, each move covers at most STEP
+    public static int minimumMoves(LngLat a, LngLat b) {
+        double distance = euclideanDistance(a, b);
+        if (distance < CLOSE_THRESHOLD) {
+            return 0;
+        }
+        return (int) Math.floor((distance - CLOSE_THRESHOLD) / STEP) + 1;
+    }
+
     // Calculating the next position after moving in a given direction.
 
     public static LngLat nextPosition(LngLat start, Double angle) {
@@ -78,7 +87,7 @@ public class DroneNavigation {
     }
 
     // Validating that a point has valid coordinates
-    private static void validatePoint(LngLat point) {
+    static void validatePoint(LngLat point) {
         if (point == null) {
             throw new IllegalArgumentException("Point cannot be null");
         }
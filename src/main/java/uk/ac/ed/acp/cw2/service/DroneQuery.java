@@ -0,0 +1,191 @@
+package uk.ac.ed.acp.cw2.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ed.acp.cw2.dto.QueryAttribute;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Query conditions compiled once per request into typed predicates:
+ * the attribute is resolved through DroneAttribute and the value parsed up front
+ * every condition scans one column of DroneColumns into a BitSet, the BitSets are ANDed
+ * Same semantics as matching against the drone's JSON:
+ * missing attributes and values never match
+ * numbers support =, !=, <, >, <=, >= with = meaning within 0.0001
+ * booleans and text support = and !=, other operators never match
+ * a value that is not a number never matches a numeric attribute
+ */
+public final class DroneQuery {
+
+    private static final Logger logger = LoggerFactory.getLogger(DroneQuery.class);
+
+    private static final double EQUALITY_TOLERANCE = 0.0001;
+
+    private static final Condition NEVER = columns -> new BitSet();
+
+    // Drones of the columns matching the condition
+    @FunctionalInterface
+    public interface Condition {
+        BitSet select(DroneColumns columns);
+    }
+
+    private final Condition[] conditions;
+
+    private DroneQuery(Condition[] conditions) {
+        this.conditions = conditions;
+    }
+
+    // All conditions joined by AND, an empty list matches every drone
+    public static DroneQuery compile(List<QueryAttribute> queryAttributes) {
+        Condition[] conditions = new Condition[queryAttributes.size()];
+        for (int i = 0; i < conditions.length; i++) {
+            QueryAttribute qa = queryAttributes.get(i);
+            conditions[i] = compile(qa.getAttribute(), qa.getOperator(), qa.getValue());
+        }
+        return new DroneQuery(conditions);
+    }
+
+    public static DroneQuery equalTo(String attribute, String value) {
+        return new DroneQuery(new Condition[]{compile(attribute, "=", value)});
+    }
+
+    // Ordinals of the drones matching every condition
+    public BitSet select(DroneColumns columns) {
+        BitSet selected = new BitSet(columns.size());
+        selected.set(0, columns.size());
+        for (Condition condition : conditions) {
+            if (selected.isEmpty()) {
+                break;
+            }
+            selected.and(condition.select(columns));
+        }
+        return selected;
+    }
+
+    public static Condition compile(String attribute, String operator, String value) {
+        DroneAttribute resolved = DroneAttribute.byName(attribute);
+        if (resolved == null) {
+            logger.debug("Unknown attribute {}", attribute);
+            return NEVER;
+        }
+        if (operator == null) {
+            logger.warn("Missing operator for attribute {}", attribute);
+            return NEVER;
+        }
+
+        return switch (resolved.kind()) {
+            case NUMBER -> compileNumeric(resolved, operator, value);
+            case BOOLEAN -> compileBoolean(resolved, operator, value);
+            case TEXT -> compileText(resolved, operator, value);
+        };
+    }
+
+    private static Condition compileNumeric(DroneAttribute attribute, String operator, String value) {
+        double expected;
+        try {
+            expected = Double.parseDouble(value);
+        } catch (NullPointerException | NumberFormatException e) {
+            logger.warn("Error matching attribute {}: {}", attribute.jsonName(), e.getMessage());
+            return NEVER;
+        }
+
+        // Every test is false for NaN, which is how the double columns store missing values
+        NumericTest test = switch (operator) {
+            case "=" -> actual -> Math.abs(actual - expected) < EQUALITY_TOLERANCE;
+            case "!=" -> actual -> Math.abs(actual - expected) >= EQUALITY_TOLERANCE;
+            case "<" -> actual -> actual < expected;
+            case ">" -> actual -> actual > expected;
+            case "<=" -> actual -> actual <= expected;
+            case ">=" -> actual -> actual >= expected;
+            default -> null;
+        };
+        if (test == null) {
+            logger.warn("Unknown operator: {}", operator);
+            return NEVER;
+        }
+
+        if (attribute == DroneAttribute.MAX_MOVES) {
+            return columns -> {
+                int[] values = columns.maxMoves();
+                BitSet present = columns.present(attribute);
+                BitSet selected = new BitSet(columns.size());
+                for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+                    if (test.test(values[i])) {
+                        selected.set(i);
+                    }
+                }
+                return selected;
+            };
+        }
+        return columns -> {
+            double[] values = columns.doubles(attribute);
+            BitSet selected = new BitSet(values.length);
+            for (int i = 0; i < values.length; i++) {
+                if (test.test(values[i])) {
+                    selected.set(i);
+                }
+            }
+            return selected;
+        };
+    }
+
+    private static Condition compileBoolean(DroneAttribute attribute, String operator, String value) {
+        boolean expected = Boolean.parseBoolean(value);
+        boolean wantTrue;
+        switch (operator) {
+            case "=" -> wantTrue = expected;
+            case "!=" -> wantTrue = !expected;
+            default -> {
+                logger.warn("Unsupported boolean operator: {}", operator);
+                return NEVER;
+            }
+        }
+
+        return columns -> {
+            BitSet selected = (BitSet) columns.present(attribute).clone();
+            if (wantTrue) {
+                selected.and(columns.flags(attribute));
+            } else {
+                selected.andNot(columns.flags(attribute));
+            }
+            return selected;
+        };
+    }
+
+    private static Condition compileText(DroneAttribute attribute, String operator, String value) {
+        boolean equal;
+        switch (operator) {
+            case "=" -> equal = true;
+            case "!=" -> equal = false;
+            default -> {
+                logger.warn("Unsupported string operator: {}", operator);
+                return NEVER;
+            }
+        }
+
+        // capability is present as the text "", so it only depends on the value
+        if (attribute == DroneAttribute.CAPABILITY) {
+            boolean matches = "".equals(value) == equal;
+            return columns -> matches ? (BitSet) columns.present(attribute).clone() : new BitSet();
+        }
+
+        return columns -> {
+            int[] codes = columns.codes(attribute);
+            int code = columns.code(value);
+            BitSet selected = new BitSet(codes.length);
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i] >= 0 && (codes[i] == code) == equal) {
+                    selected.set(i);
+                }
+            }
+            return selected;
+        };
+    }
+
+    @FunctionalInterface
+    private interface NumericTest {
+        boolean test(double actual);
+    }
+}
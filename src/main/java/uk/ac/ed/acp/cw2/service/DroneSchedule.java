@@ -0,0 +1,44 @@
+package uk.ac.ed.acp.cw2.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Busy intervals [start, end) of one drone within a day, in seconds since midnight.
+ * Booked intervals never overlap, so a TreeMap keyed by start works as an interval tree:
+ * only the floor and ceiling entries of a new start can clash with it,
+ * which keeps checks and bookings O(log n) as the day fills up.
+ */
+public class DroneSchedule {
+
+    private final TreeMap<Integer, Integer> busy = new TreeMap<>();
+
+    // Checking if [start, end) overlaps none of the booked intervals
+    public boolean isFree(int start, int end) {
+        Map.Entry<Integer, Integer> before = busy.floorEntry(start);
+        if (before != null && before.getValue() > start) {
+            return false;
+        }
+
+        Map.Entry<Integer, Integer> after = busy.ceilingEntry(start);
+        return after == null || after.getKey() >= end;
+    }
+
+    // Books [start, end) if it is free, returns false otherwise
+    public boolean book(int start, int end) {
+        if (!isFree(start, end)) {
+            return false;
+        }
+        busy.put(start, end);
+        return true;
+    }
+
+    // Releases the interval starting at start, returns false if there was none
+    public boolean release(int start) {
+        return busy.remove(start) != null;
+    }
+
+    public int size() {
+        return busy.size();
+    }
+}
@@ -0,0 +1,49 @@
+package uk.ac.ed.acp.cw2.service;
+
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+
+import java.util.*;
+
+/**
+ * Drones eligible for every dispatch of a planning request, evaluated in one pass:
+ * one BitSet row of drone ordinals per dispatch, columns are the drone IDs in ordinal order
+ * rows are found by dispatch identity, so sorted or grouped views of the request still match
+ * a dispatch without a row has no eligible drones
+ */
+public final class EligibilityMatrix {
+
+    private final List<String> droneIds;
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final Map<MedDispatchRec, BitSet> rows = new IdentityHashMap<>();
+
+    public EligibilityMatrix(List<String> droneIds, Map<MedDispatchRec, BitSet> rows) {
+        this.droneIds = List.copyOf(droneIds);
+        for (int i = 0; i < this.droneIds.size(); i++) {
+            ordinals.putIfAbsent(this.droneIds.get(i), i);
+        }
+        this.rows.putAll(rows);
+    }
+
+    // Eligible drone IDs for the dispatch, in ordinal order
+    public List<String> eligibleDrones(MedDispatchRec dispatch) {
+        BitSet row = rows.get(dispatch);
+        if (row == null) {
+            return List.of();
+        }
+        List<String> eligible = new ArrayList<>(row.cardinality());
+        for (int ordinal = row.nextSetBit(0); ordinal >= 0; ordinal = row.nextSetBit(ordinal + 1)) {
+            eligible.add(droneIds.get(ordinal));
+        }
+        return eligible;
+    }
+
+    public boolean isEligible(MedDispatchRec dispatch, String droneId) {
+        BitSet row = rows.get(dispatch);
+        Integer ordinal = ordinals.get(droneId);
+        return row != null && ordinal != null && row.get(ordinal);
+    }
+
+    public int size() {
+        return rows.size();
+    }
+}
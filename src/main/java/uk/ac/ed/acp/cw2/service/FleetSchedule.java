@@ -0,0 +1,117 @@
+package uk.ac.ed.acp.cw2.service;
+
+import uk.ac.ed.acp.cw2.model.DayAvailability;
+import uk.ac.ed.acp.cw2.model.DroneForServicePoint;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time-aware bookings of the fleet for one delivery date:
+ * flight moves are translated to time with SECONDS_PER_MOVE
+ * a flight departs at the dispatch time and must end inside the same availability window,
+ * touching or overlapping DayAvailability windows of a drone count as one window
+ * flights of one drone must not overlap, so a drone is reused for sequential deliveries only
+ * Dispatches without a time are not scheduled, without a date no window is enforced
+ */
+public class FleetSchedule {
+
+    // A move covers STEP (about 16 m), roughly one second of flight for a delivery drone
+    public static final int SECONDS_PER_MOVE = 1;
+
+    private final DayOfWeek dayOfWeek;
+    // Drone id -> merged windows of the weekday as [start, end) second-of-day pairs
+    private final Map<String, int[]> windows = new HashMap<>();
+    private final Map<String, DroneSchedule> bookings = new HashMap<>();
+
+    public FleetSchedule(LocalDate date, List<DroneForServicePoint> dronesForServicePoints) {
+        this.dayOfWeek = date != null ? date.getDayOfWeek() : null;
+
+        if (dayOfWeek == null) {
+            return;
+        }
+
+        // Decodes the windows of this weekday once per date
+        Map<String, List<int[]>> decoded = new HashMap<>();
+        for (DroneForServicePoint dfsp : dronesForServicePoints) {
+            for (DroneForServicePoint.DroneAvailability da : dfsp.getDrones()) {
+                if (da.getAvailability() == null) {
+                    continue;
+                }
+                for (DayAvailability availability : da.getAvailability()) {
+                    if (availability.getDayOfWeekEnum().equals(dayOfWeek)) {
+                        decoded.computeIfAbsent(da.getId(), id -> new ArrayList<>()).add(new int[]{
+                                availability.getFromTime().toSecondOfDay(),
+                                availability.getUntilTime().toSecondOfDay()});
+                    }
+                }
+            }
+        }
+        decoded.forEach((droneId, intervals) -> windows.put(droneId, FleetSnapshot.merge(intervals)));
+    }
+
+    public static int durationOf(int moves) {
+        return moves * SECONDS_PER_MOVE;
+    }
+
+    // Checking if the drone can fly for the given moves departing at departure
+    public boolean canFly(String droneId, LocalTime departure, int moves) {
+        if (departure == null) {
+            return true;
+        }
+
+        int start = departure.toSecondOfDay();
+        int end = start + durationOf(moves);
+
+        if (!withinWindow(droneId, start, end)) {
+            return false;
+        }
+
+        DroneSchedule schedule = bookings.get(droneId);
+        return schedule == null || schedule.isFree(start, end);
+    }
+
+    // Books the flight if it is still possible, returns false otherwise
+    public boolean book(String droneId, LocalTime departure, int moves) {
+        if (!canFly(droneId, departure, moves)) {
+            return false;
+        }
+        if (departure == null) {
+            return true;
+        }
+
+        int start = departure.toSecondOfDay();
+        return bookings.computeIfAbsent(droneId, id -> new DroneSchedule())
+                .book(start, start + durationOf(moves));
+    }
+
+    // Frees the flight of the drone departing at departure
+    public void release(String droneId, LocalTime departure) {
+        DroneSchedule schedule = bookings.get(droneId);
+        if (schedule != null && departure != null) {
+            schedule.release(departure.toSecondOfDay());
+        }
+    }
+
+    private boolean withinWindow(String droneId, int start, int end) {
+        if (dayOfWeek == null) {
+            return true;
+        }
+
+        int[] merged = windows.get(droneId);
+        if (merged == null) {
+            return false;
+        }
+        for (int w = 0; w < merged.length; w += 2) {
+            if (merged[w] <= start && end <= merged[w + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
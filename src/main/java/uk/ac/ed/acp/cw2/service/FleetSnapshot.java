@@ -0,0 +1,532 @@
+package uk.ac.ed.acp.cw2.service;
+
+import uk.ac.ed.acp.cw2.dto.DeliveryRequirements;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.model.*;
+
+import java.time.DayOfWeek;
+import java.util.*;
+
+/**
+ * Immutable, pre-decoded view of the fleet as fetched from the ILP service:
+ * drones get dense ordinals in the order of the drones list
+ * availability is decoded once into sorted [start, end) second-of-week intervals per drone,
+ * so checking a dispatch time is an integer comparison instead of parsing strings
+ * the service point of a drone is the first one listing it
+ * inputs are the exact values the snapshot is built from, a cache reuses it only while they
+ * are equal, version is a fingerprint of them for labelling (not comparing) snapshots
+ * minute index: for every minute of the week a BitSet of the drones available at its
+ * first second, minutes with the same drones share one BitSet, so a dispatch on a full
+ * minute is checked for the whole fleet with one lookup and a word-wise AND
+ * capabilities: BitSets of the drones with a capability, cooling and heating, plus the
+ * ordinals sorted by capacity, so a requirement is narrowed with ANDs and one binary search
+ * costs: service point location and costs as primitive arrays, so the maxCost estimate of
+ * a candidate is a few array reads instead of getters and service point lookups
+ * requirement memo: the drones eligible for a requirement shape (time, capacity, cooling,
+ * heating) are kept in a bounded LRU map, so it lives exactly as long as this version
+ */
+public final class FleetSnapshot {
+
+    public static final int SECONDS_PER_DAY = 86_400;
+    public static final int SECONDS_PER_WEEK = 7 * SECONDS_PER_DAY;
+    public static final int MINUTES_PER_WEEK = SECONDS_PER_WEEK / 60;
+
+    public static final int MEMO_SIZE = 1024;
+
+    private static final int[] NO_WINDOWS = new int[0];
+
+    private final List<Object> inputs;
+    private final long version;
+    private final List<Drone> drones;
+    private final Map<String, Integer> ordinals;
+    private final int[][] windows;
+    private final ServicePoint[] servicePoints;
+    private final BitSet[] minuteIndex;
+    // BitSets of the drones' DroneColumns, read only
+    private final BitSet capable;
+    private final BitSet cooling;
+    private final BitSet heating;
+    private final BitSet hasCapacity;
+    // Ordinals of drones with a capacity, ascending by capacity
+    private final int[] capacityOrder;
+    private final double[] sortedCapacity;
+    // NaN when the drone has no service point location or the cost is missing
+    private final double[] baseLng;
+    private final double[] baseLat;
+    private final double[] fixedCost;
+    private final double[] costPerMove;
+    // Shape -> eligible drones, least recently used first, guarded by itself
+    private final Map<RequirementShape, BitSet> memo = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<RequirementShape, BitSet> eldest) {
+            return size() > MEMO_SIZE;
+        }
+    };
+
+    /**
+     * Canonical form of the parts of a dispatch that do not depend on its delivery location:
+     * secondOfWeek is -1 without date/time, capacity is NaN when not required
+     */
+    public record RequirementShape(int secondOfWeek, double capacity, boolean cooling, boolean heating) {
+
+        public static RequirementShape of(MedDispatchRec dispatch) {
+            Integer secondOfWeek = dispatch.getSecondOfWeek();
+            DeliveryRequirements requirements = dispatch.getRequirements();
+            Double capacity = requirements != null ? requirements.getCapacity() : null;
+            return new RequirementShape(
+                    secondOfWeek != null ? secondOfWeek : -1,
+                    // + 0.0 turns -0.0 into 0.0 so both give one shape
+                    capacity != null ? capacity + 0.0 : Double.NaN,
+                    requirements != null && Boolean.TRUE.equals(requirements.getCooling()),
+                    requirements != null && Boolean.TRUE.equals(requirements.getHeating()));
+        }
+    }
+
+    private FleetSnapshot(List<Object> inputs, List<Drone> drones, Map<String, Integer> ordinals,
+                          int[][] windows, ServicePoint[] servicePoints) {
+        this.inputs = inputs;
+        this.version = fingerprint(1125899906842597L, inputs);
+        this.drones = drones;
+        this.ordinals = ordinals;
+        this.windows = windows;
+        this.servicePoints = servicePoints;
+        this.minuteIndex = buildMinuteIndex(windows);
+
+        DroneColumns columns = DroneColumns.of(drones);
+        this.capable = columns.present(DroneAttribute.CAPABILITY);
+        this.cooling = columns.flags(DroneAttribute.COOLING);
+        this.heating = columns.flags(DroneAttribute.HEATING);
+        this.hasCapacity = columns.present(DroneAttribute.CAPACITY);
+
+        double[] capacity = columns.doubles(DroneAttribute.CAPACITY);
+        List<Integer> withCapacity = new ArrayList<>(hasCapacity.cardinality());
+        for (int ordinal = hasCapacity.nextSetBit(0); ordinal >= 0; ordinal = hasCapacity.nextSetBit(ordinal + 1)) {
+            withCapacity.add(ordinal);
+        }
+        withCapacity.sort(Comparator.comparingDouble(ordinal -> capacity[ordinal]));
+
+        this.capacityOrder = new int[withCapacity.size()];
+        this.sortedCapacity = new double[withCapacity.size()];
+        for (int i = 0; i < capacityOrder.length; i++) {
+            capacityOrder[i] = withCapacity.get(i);
+            sortedCapacity[i] = capacity[capacityOrder[i]];
+        }
+
+        this.baseLng = new double[drones.size()];
+        this.baseLat = new double[drones.size()];
+        this.fixedCost = new double[drones.size()];
+        this.costPerMove = new double[drones.size()];
+        for (int ordinal = 0; ordinal < drones.size(); ordinal++) {
+            LngLat base = servicePoints[ordinal] != null ? servicePoints[ordinal].getLocation() : null;
+            baseLng[ordinal] = base != null && base.getLng() != null ? base.getLng() : Double.NaN;
+            baseLat[ordinal] = base != null && base.getLat() != null ? base.getLat() : Double.NaN;
+        }
+        // NaN in any of the cost columns makes the estimate NaN, so unpriced drones fail every bound
+        double[] costInitial = columns.doubles(DroneAttribute.COST_INITIAL);
+        double[] costFinal = columns.doubles(DroneAttribute.COST_FINAL);
+        double[] perMove = columns.doubles(DroneAttribute.COST_PER_MOVE);
+        for (int ordinal = 0; ordinal < drones.size(); ordinal++) {
+            fixedCost[ordinal] = costInitial[ordinal] + costFinal[ordinal];
+            costPerMove[ordinal] = perMove[ordinal];
+        }
+    }
+
+    public static FleetSnapshot build(List<Drone> drones,
+                                      List<DroneForServicePoint> dronesForServicePoints,
+                                      List<ServicePoint> servicePoints) {
+        List<Drone> ordered = List.copyOf(drones);
+        Map<String, Integer> ordinals = new HashMap<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            ordinals.putIfAbsent(ordered.get(i).getId(), i);
+        }
+
+        Map<Integer, ServicePoint> servicePointsById = new HashMap<>();
+        for (ServicePoint servicePoint : servicePoints) {
+            servicePointsById.putIfAbsent(servicePoint.getId(), servicePoint);
+        }
+
+        List<List<int[]>> intervals = new ArrayList<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            intervals.add(new ArrayList<>());
+        }
+        ServicePoint[] stationedAt = new ServicePoint[ordered.size()];
+        boolean[] stationed = new boolean[ordered.size()];
+
+        for (DroneForServicePoint dfsp : dronesForServicePoints) {
+            if (dfsp.getDrones() == null) {
+                continue;
+            }
+            for (DroneForServicePoint.DroneAvailability da : dfsp.getDrones()) {
+                Integer ordinal = ordinals.get(da.getId());
+                if (ordinal == null) {
+                    continue;
+                }
+                if (!stationed[ordinal]) {
+                    stationed[ordinal] = true;
+                    stationedAt[ordinal] = servicePointsById.get(dfsp.getServicePointId());
+                }
+                if (da.getAvailability() == null) {
+                    continue;
+                }
+                for (DayAvailability availability : da.getAvailability()) {
+                    int[] interval = decode(availability);
+                    if (interval != null) {
+                        intervals.get(ordinal).add(interval);
+                    }
+                }
+            }
+        }
+
+        int[][] windows = new int[ordered.size()][];
+        for (int i = 0; i < ordered.size(); i++) {
+            windows[i] = merge(intervals.get(i));
+        }
+
+        return new FleetSnapshot(inputs(drones, dronesForServicePoints, servicePoints),
+                ordered, ordinals, windows, stationedAt);
+    }
+
+    /**
+     * Exact values of everything the snapshot is built from, as nested lists (null where the
+     * ILP data has null), cheap enough to compute per request so an unchanged fleet can reuse
+     * its snapshot after an equals check
+     */
+    public static List<Object> inputs(List<Drone> drones,
+                                      List<DroneForServicePoint> dronesForServicePoints,
+                                      List<ServicePoint> servicePoints) {
+        List<Object> stationing = new ArrayList<>(dronesForServicePoints.size());
+        for (DroneForServicePoint dfsp : dronesForServicePoints) {
+            List<Object> stationed = null;
+            if (dfsp.getDrones() != null) {
+                stationed = new ArrayList<>(dfsp.getDrones().size());
+                for (DroneForServicePoint.DroneAvailability da : dfsp.getDrones()) {
+                    List<Object> availability = null;
+                    if (da.getAvailability() != null) {
+                        availability = new ArrayList<>(da.getAvailability().size());
+                        for (DayAvailability day : da.getAvailability()) {
+                            availability.add(Arrays.asList(day.getDayOfWeek(), day.getFrom(), day.getUntil()));
+                        }
+                    }
+                    stationed.add(Arrays.asList(da.getId(), availability));
+                }
+            }
+            stationing.add(Arrays.asList(dfsp.getServicePointId(), stationed));
+        }
+
+        List<Object> locations = new ArrayList<>(servicePoints.size());
+        for (ServicePoint servicePoint : servicePoints) {
+            LngLat location = servicePoint.getLocation();
+            locations.add(Arrays.asList(servicePoint.getId(), servicePoint.getName(),
+                    location != null ? Arrays.asList(location.getLng(), location.getLat()) : null));
+        }
+        return List.of(DroneColumns.inputs(drones), stationing, locations);
+    }
+
+    public static int secondOfWeek(DayOfWeek dayOfWeek, int secondOfDay) {
+        return (dayOfWeek.getValue() - 1) * SECONDS_PER_DAY + secondOfDay;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    // Exact values the snapshot was built from, see inputs(drones, dronesForServicePoints, servicePoints)
+    public List<Object> inputs() {
+        return inputs;
+    }
+
+    public int size() {
+        return drones.size();
+    }
+
+    public Drone drone(int ordinal) {
+        return drones.get(ordinal);
+    }
+
+    public List<Drone> drones() {
+        return drones;
+    }
+
+    // Drone IDs in ordinal order
+    public List<String> droneIds() {
+        return drones.stream().map(Drone::getId).toList();
+    }
+
+    // Ordinal of the drone, -1 if it is not in the snapshot
+    public int ordinalOf(String droneId) {
+        Integer ordinal = ordinals.get(droneId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    // Service point the drone is stationed at, null if none
+    public ServicePoint servicePoint(int ordinal) {
+        return servicePoints[ordinal];
+    }
+
+    // Sorted, non-overlapping [start, end) second-of-week pairs, flattened
+    public int[] windows(int ordinal) {
+        return windows[ordinal];
+    }
+
+    // Checking if the drone has a window containing secondOfWeek (start inclusive, end exclusive)
+    public boolean isAvailable(int ordinal, int secondOfWeek) {
+        int[] droneWindows = windows[ordinal];
+        int low = 0;
+        int high = droneWindows.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (secondOfWeek < droneWindows[mid * 2]) {
+                high = mid - 1;
+            } else if (secondOfWeek >= droneWindows[mid * 2 + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Drones available at secondOfWeek, a new BitSet the caller may modify
+    public BitSet availableAt(int secondOfWeek) {
+        BitSet available = new BitSet(drones.size());
+        available.set(0, drones.size());
+        retainAvailable(available, secondOfWeek);
+        return available;
+    }
+
+    /**
+     * Clears the drones not available at secondOfWeek from candidates
+     * full minutes use the minute index, other seconds check the windows of each candidate
+     */
+    public void retainAvailable(BitSet candidates, int secondOfWeek) {
+        if (secondOfWeek % 60 == 0 && secondOfWeek >= 0 && secondOfWeek < SECONDS_PER_WEEK) {
+            candidates.and(minuteIndex[secondOfWeek / 60]);
+            return;
+        }
+        for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+            if (!isAvailable(ordinal, secondOfWeek)) {
+                candidates.clear(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Clears the drones not meeting the capability requirements from candidates:
+     * drones without a capability always, cooling and heating by AND with their BitSets,
+     * capacity by clearing the drones sorted below the first one with enough capacity
+     * maxCost depends on the delivery location and is left to the caller
+     */
+    public void retainCapable(BitSet candidates, DeliveryRequirements requirements) {
+        if (requirements == null) {
+            candidates.and(capable);
+            return;
+        }
+        retainCapable(candidates, requirements.getCapacity(),
+                Boolean.TRUE.equals(requirements.getCooling()), Boolean.TRUE.equals(requirements.getHeating()));
+    }
+
+    /**
+     * Drones eligible for the shape by time and capabilities, memoised per snapshot
+     * The BitSet is shared, callers must not modify it
+     */
+    public BitSet eligible(RequirementShape shape) {
+        synchronized (memo) {
+            BitSet cached = memo.get(shape);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        BitSet eligible = new BitSet(drones.size());
+        eligible.set(0, drones.size());
+        if (shape.secondOfWeek() >= 0) {
+            retainAvailable(eligible, shape.secondOfWeek());
+        }
+        retainCapable(eligible, Double.isNaN(shape.capacity()) ? null : shape.capacity(),
+                shape.cooling(), shape.heating());
+
+        synchronized (memo) {
+            memo.putIfAbsent(shape, eligible);
+            return memo.get(shape);
+        }
+    }
+
+    private void retainCapable(BitSet candidates, Double capacity, boolean needsCooling, boolean needsHeating) {
+        candidates.and(capable);
+        if (needsCooling) {
+            candidates.and(cooling);
+        }
+        if (needsHeating) {
+            candidates.and(heating);
+        }
+        if (capacity != null) {
+            retainCapacity(candidates, capacity);
+        }
+    }
+
+    /**
+     * Clears the drones whose estimated cost to the delivery and back exceeds maxCost:
+     * initial + final cost + 2 * distance / STEP moves, drones without a service point are kept
+     * drones with missing costs are cleared
+     */
+    public void retainWithinCost(BitSet candidates, LngLat delivery, double maxCost) {
+        DroneNavigation.validatePoint(delivery);
+        double lng = delivery.getLng();
+        double lat = delivery.getLat();
+        for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+            if (Double.isNaN(baseLng[ordinal]) || Double.isNaN(baseLat[ordinal])) {
+                continue;
+            }
+            double dx = baseLng[ordinal] - lng;
+            double dy = baseLat[ordinal] - lat;
+            double estimatedMoves = (Math.sqrt(dx * dx + dy * dy) * 2) / DroneNavigation.STEP;
+            double estimatedCost = fixedCost[ordinal] + estimatedMoves * costPerMove[ordinal];
+            if (!(estimatedCost <= maxCost)) {
+                candidates.clear(ordinal);
+            }
+        }
+    }
+
+    // Clears the drones unable to handle the dispatch from candidates
+    public void retainEligible(BitSet candidates, MedDispatchRec dispatch) {
+        // Date/time, capability, cooling/heating and capacity, memoised per requirement shape
+        candidates.and(eligible(RequirementShape.of(dispatch)));
+
+        // maxCost depends on the delivery, estimated from the cost arrays
+        if (!candidates.isEmpty() && dispatch.getRequirements() != null
+                && dispatch.getRequirements().getMaxCost() != null && dispatch.getDelivery() != null) {
+            retainWithinCost(candidates, dispatch.getDelivery(), dispatch.getRequirements().getMaxCost());
+        }
+    }
+
+    // IDs of the drones able to handle the dispatch on its own, in ordinal order
+    public List<String> eligibleDrones(MedDispatchRec dispatch) {
+        BitSet candidates = new BitSet(drones.size());
+        candidates.set(0, drones.size());
+        retainEligible(candidates, dispatch);
+
+        List<String> droneIds = new ArrayList<>(candidates.cardinality());
+        for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+            droneIds.add(drones.get(ordinal).getId());
+        }
+        return droneIds;
+    }
+
+    // Clears the drones with less than the required capacity, or none at all, from candidates
+    private void retainCapacity(BitSet candidates, double required) {
+        candidates.and(hasCapacity);
+        int first = firstWithCapacity(required);
+        for (int i = 0; i < first; i++) {
+            candidates.clear(capacityOrder[i]);
+        }
+    }
+
+    // Index of the first drone in capacity order with at least the required capacity
+    private int firstWithCapacity(double required) {
+        int low = 0;
+        int high = sortedCapacity.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedCapacity[mid] < required) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Sweeps the window boundaries (in minutes) once: a window [start, end) covers the
+     * minutes whose first second lies inside it, every run of minutes between two
+     * boundaries gets one shared, read-only BitSet
+     */
+    private static BitSet[] buildMinuteIndex(int[][] windows) {
+        // Minute -> drones leaving (negative ordinal - 1) and entering at that minute
+        TreeMap<Integer, List<Integer>> events = new TreeMap<>();
+        for (int ordinal = 0; ordinal < windows.length; ordinal++) {
+            int[] droneWindows = windows[ordinal];
+            for (int w = 0; w < droneWindows.length; w += 2) {
+                int first = Math.ceilDiv(droneWindows[w], 60);
+                int end = Math.ceilDiv(droneWindows[w + 1], 60);
+                if (first < end) {
+                    events.computeIfAbsent(first, minute -> new ArrayList<>()).add(ordinal);
+                    events.computeIfAbsent(end, minute -> new ArrayList<>()).add(-ordinal - 1);
+                }
+            }
+        }
+
+        BitSet[] index = new BitSet[MINUTES_PER_WEEK];
+        BitSet current = new BitSet();
+        int from = 0;
+        for (Map.Entry<Integer, List<Integer>> event : events.entrySet()) {
+            int minute = Math.min(event.getKey(), MINUTES_PER_WEEK);
+            Arrays.fill(index, from, minute, current);
+
+            current = (BitSet) current.clone();
+            // Leaving first, a drone can end one window and start the next in the same minute
+            for (int change : event.getValue()) {
+                if (change < 0) {
+                    current.clear(-change - 1);
+                }
+            }
+            for (int change : event.getValue()) {
+                if (change >= 0) {
+                    current.set(change);
+                }
+            }
+            from = minute;
+        }
+        Arrays.fill(index, from, MINUTES_PER_WEEK, current);
+        return index;
+    }
+
+    // [start, end) of one DayAvailability, null when incomplete or empty
+    static int[] decode(DayAvailability availability) {
+        if (availability.getDayOfWeek() == null || availability.getFrom() == null
+                || availability.getUntil() == null) {
+            return null;
+        }
+        DayOfWeek dayOfWeek = availability.getDayOfWeekEnum();
+        int start = secondOfWeek(dayOfWeek, availability.getFromTime().toSecondOfDay());
+        int end = secondOfWeek(dayOfWeek, availability.getUntilTime().toSecondOfDay());
+        return start < end ? new int[]{start, end} : null;
+    }
+
+    // Sorts and merges overlapping or touching intervals
+    static int[] merge(List<int[]> intervals) {
+        if (intervals.isEmpty()) {
+            return NO_WINDOWS;
+        }
+        intervals.sort(Comparator.comparingInt(interval -> interval[0]));
+
+        int[] merged = new int[intervals.size() * 2];
+        int count = 0;
+        for (int[] interval : intervals) {
+            if (count > 0 && interval[0] <= merged[count * 2 - 1]) {
+                merged[count * 2 - 1] = Math.max(merged[count * 2 - 1], interval[1]);
+            } else {
+                merged[count * 2] = interval[0];
+                merged[count * 2 + 1] = interval[1];
+                count++;
+            }
+        }
+        return Arrays.copyOf(merged, count * 2);
+    }
+
+    // Mixes every leaf value in on its own, with list sizes, so no two fields fold into one int first
+    private static long fingerprint(long hash, Object value) {
+        if (value instanceof List<?> list) {
+            hash = mix(hash, list.size());
+            for (Object element : list) {
+                hash = fingerprint(hash, element);
+            }
+            return hash;
+        }
+        return mix(hash, value);
+    }
+
+    private static long mix(long hash, Object value) {
+        return hash * 1_000_003L ^ (value != null ? value.hashCode() : 0);
+    }
+}
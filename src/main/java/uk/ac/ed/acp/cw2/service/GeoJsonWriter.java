@@ -0,0 +1,142 @@
+package uk.ac.ed.acp.cw2.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import uk.ac.ed.acp.cw2.dto.Delivery;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.DronePath;
+import uk.ac.ed.acp.cw2.model.FlightPath;
+import uk.ac.ed.acp.cw2.model.LngLat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Provides static utility methods for writing a plan as GeoJSON:
+ * a FeatureCollection with one LineString Feature per DronePath (droneId and deliveryIds as properties)
+ * written token by token to the output stream, the document is never held in memory
+ * coordinates have 6 decimals, formatted into a reused char buffer instead of String.format
+ */
+public class GeoJsonWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private static final int DECIMALS = 6;
+    private static final double SCALE = 1_000_000;
+
+    private GeoJsonWriter() {
+    }
+
+    // Writes the FeatureCollection and flushes, the stream stays open
+    public static void write(DeliveryPathResponse response, OutputStream output) throws IOException {
+        char[] buffer = new char[32];
+
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(output)) {
+            gen.writeStartObject();
+            gen.writeStringField("type", "FeatureCollection");
+            gen.writeArrayFieldStart("features");
+
+            List<DronePath> dronePaths = response.getDronePaths();
+            if (dronePaths != null) {
+                for (DronePath dronePath : dronePaths) {
+                    writeFeature(gen, dronePath, buffer);
+                }
+            }
+
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Formats value with exactly 6 decimals (half-up) into buffer, returns the length
+     * same digits as String.format("%.6f") for coordinates, NaN and infinity are not supported
+     * values within a few ulps of a rounding tie go through String.format itself, the scaled
+     * product cannot tell which side of the tie their decimal digits are on
+     */
+    public static int formatFixed(double value, char[] buffer) {
+        double product = Math.abs(value) * SCALE;
+        if (Math.abs(product - Math.floor(product) - 0.5) <= 2 * Math.ulp(product)) {
+            String formatted = String.format(Locale.ROOT, "%.6f", value);
+            formatted.getChars(0, formatted.length(), buffer, 0);
+            return formatted.length();
+        }
+
+        long scaled = Math.round(product);
+        int length = 0;
+
+        // Sign bit, so tiny negatives and -0.0 keep their '-' like String.format
+        if (Double.doubleToRawLongBits(value) < 0) {
+            buffer[length++] = '-';
+        }
+
+        long whole = scaled / (long) SCALE;
+        long fraction = scaled % (long) SCALE;
+
+        // Integer part, digits written backwards then reversed
+        int start = length;
+        do {
+            buffer[length++] = (char) ('0' + whole % 10);
+            whole /= 10;
+        } while (whole > 0);
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            char digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+
+        buffer[length++] = '.';
+        for (int i = DECIMALS - 1; i >= 0; i--) {
+            buffer[length + i] = (char) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        return length + DECIMALS;
+    }
+
+    private static void writeFeature(JsonGenerator gen, DronePath dronePath, char[] buffer) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", "Feature");
+
+        gen.writeObjectFieldStart("properties");
+        gen.writeStringField("droneId", dronePath.getDroneId());
+        gen.writeArrayFieldStart("deliveryIds");
+        for (Delivery delivery : dronePath.getDeliveries()) {
+            if (delivery.getDeliveryId() != null && delivery.getDeliveryId() != -1) {
+                gen.writeNumber(delivery.getDeliveryId());
+            }
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+
+        gen.writeObjectFieldStart("geometry");
+        gen.writeStringField("type", "LineString");
+        gen.writeArrayFieldStart("coordinates");
+        for (Delivery delivery : dronePath.getDeliveries()) {
+            List<LngLat> points = delivery.getFlightPath();
+            if (points instanceof FlightPath path) {
+                for (int i = 0; i < path.size(); i++) {
+                    writeCoordinate(gen, path.lngAt(i), path.latAt(i), buffer);
+                }
+            } else if (points != null) {
+                for (LngLat point : points) {
+                    writeCoordinate(gen, point.getLng(), point.getLat(), buffer);
+                }
+            }
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+
+        gen.writeEndObject();
+    }
+
+    private static void writeCoordinate(JsonGenerator gen, double lng, double lat, char[] buffer)
+            throws IOException {
+        gen.writeStartArray();
+        gen.writeNumber(buffer, 0, formatFixed(lng, buffer));
+        gen.writeNumber(buffer, 0, formatFixed(lat, buffer));
+        gen.writeEndArray();
+    }
+}
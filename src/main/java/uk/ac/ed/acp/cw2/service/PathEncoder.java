@@ -0,0 +1,78 @@
+package uk.ac.ed.acp.cw2.service;
+
+import uk.ac.ed.acp.cw2.dto.Delivery;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.DronePath;
+import uk.ac.ed.acp.cw2.dto.RunLengthPath;
+import uk.ac.ed.acp.cw2.model.FlightPath;
+import uk.ac.ed.acp.cw2.model.LngLat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides static utility methods for the run-length response format:
+ * encoding a plan so every delivery carries a RunLengthPath instead of its flightPath
+ * altitudes are not encoded
+ */
+public class PathEncoder {
+
+    public static final String RLE_MEDIA_TYPE = "application/vnd.ilp.rle+json";
+
+    public static final String RLE_FORMAT = "rle";
+
+    private PathEncoder() {
+    }
+
+    // Copy of the response with encoded deliveries, totals and partial are kept
+    public static DeliveryPathResponse encode(DeliveryPathResponse response) {
+        List<DronePath> dronePaths = new ArrayList<>();
+        if (response.getDronePaths() != null) {
+            for (DronePath dronePath : response.getDronePaths()) {
+                List<Delivery> deliveries = new ArrayList<>();
+                for (Delivery delivery : dronePath.getDeliveries()) {
+                    Delivery encoded = new Delivery(delivery.getDeliveryId(), null);
+                    encoded.setEncodedPath(encode(delivery.getFlightPath()));
+                    deliveries.add(encoded);
+                }
+                dronePaths.add(new DronePath(dronePath.getDroneId(), deliveries));
+            }
+        }
+
+        DeliveryPathResponse encoded = new DeliveryPathResponse(
+                response.getTotalCost(), response.getTotalMoves(), dronePaths);
+        encoded.setPartial(response.isPartial());
+        return encoded;
+    }
+
+    /**
+     * Encodes one flight path, planner paths keep their recorded headings
+     * other lists only know hovers and jumps
+     */
+    public static RunLengthPath encode(List<LngLat> points) {
+        if (points == null || points.isEmpty()) {
+            return new RunLengthPath(new double[0], new int[0][], new double[0][]);
+        }
+
+        FlightPath path = points instanceof FlightPath flightPath ? flightPath : FlightPath.copyOf(points);
+        List<int[]> runs = new ArrayList<>();
+        List<double[]> jumps = new ArrayList<>();
+
+        for (int i = 1; i < path.size(); i++) {
+            int code = path.headingAt(i);
+            if (code == FlightPath.JUMP) {
+                jumps.add(new double[]{path.lngAt(i), path.latAt(i)});
+            }
+
+            int[] last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+            if (last != null && last[0] == code) {
+                last[1]++;
+            } else {
+                runs.add(new int[]{code, 1});
+            }
+        }
+
+        return new RunLengthPath(new double[]{path.lngAt(0), path.latAt(0)},
+                runs.toArray(new int[0][]), jumps.toArray(new double[0][]));
+    }
+}
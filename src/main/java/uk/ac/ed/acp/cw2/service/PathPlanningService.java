@@ -8,24 +8,41 @@ import uk.ac.ed.acp.cw2.dto.*;
 import uk.ac.ed.acp.cw2.model.*;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Service for planning delivery paths for drones
  * calcDeliveryPath: Can split deliveries across multiple drones
- * calcDeliveryPathAsGeoJson: One drone for all deliveries
  * Flight path starts at service point, includes all moves while hover is 1 move
  * Return to service point is a separate delivery in list
  * Hover: Two identical coordinates at delivery point
  * TotalMoves: Includes the hover move (1 move)
  * Groups by date, processes each day separately
+ * Drone eligibility of all dispatches comes from one EligibilityMatrix per request
+ * PlanningMode.SINGLE flies every dispatch separately, PlanningMode.BATCHED chains
+ * dispatches into multi-stop tours built by RouteOptimiser, PlanningMode.OPTIMAL assigns
+ * dispatches to drones with AssignmentSolver
+ * Every date has its own FleetSchedule, so a drone can fly several dispatches a day
+ * as long as its flights do not overlap and end inside its availability window
  */
 @Service
 public class PathPlanningService {
 
     private static final Logger logger = LoggerFactory.getLogger(PathPlanningService.class);
 
+    // Search limit for a single flight, also used for drones without maxMoves
+    private static final int MAX_PATH_ITERATIONS = 10000;
+
+    // Each delivery leg ends with the move onto the delivery point plus the hover
+    private static final int DELIVERY_EXTRA_MOVES = 2;
+
+    // Drones actually path-planned per dispatch once a feasible flight is known
+    private static final int MAX_PLANNED_CANDIDATES = 3;
+
     private final IlpClientService ilpClientService;
     private final AvailabilityService availabilityService;
 
@@ -45,11 +62,56 @@ public class PathPlanningService {
      * Delivery2 → ServicePoint (return flight, no deliveryId)
      */
     public DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches) {
+        return calcDeliveryPath(dispatches, PlanningMode.SINGLE);
+    }
+
+    // Calculates delivery path for dispatches using the given planning mode
+    public DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches, PlanningMode mode) {
+        return calcDeliveryPath(dispatches, mode, PlanningDeadline.none());
+    }
+
+    /**
+     * Calculates delivery path for dispatches within the deadline of the request
+     * Once the deadline is reached no further dispatches or tours are planned and
+     * route optimisation stops, the flights planned so far are returned flagged as partial
+     */
+    public DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches, PlanningMode mode,
+                                                 PlanningDeadline deadline) {
+        return calcDeliveryPath(dispatches, mode, deadline, (planned, total) -> { });
+    }
+
+    // Same as above, progress is told (planned, total) date groups after each group is planned
+    public DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches, PlanningMode mode,
+                                                 PlanningDeadline deadline,
+                                                 BiConsumer<Integer, Integer> progress) {
+        List<DronePath> allDronePaths = new ArrayList<>();
+        DeliveryPathResponse response = planDeliveryPath(dispatches, mode, deadline, progress,
+                allDronePaths::add);
+        response.setDronePaths(allDronePaths);
+        return response;
+    }
+
+    /**
+     * Streaming variant of calcDeliveryPath: every DronePath is handed to sink as soon as
+     * it is planned and is not kept afterwards
+     * Returns the totals of the plan, its dronePaths list is empty
+     */
+    public DeliveryPathResponse streamDeliveryPath(List<MedDispatchRec> dispatches, PlanningMode mode,
+                                                   PlanningDeadline deadline,
+                                                   Consumer<DronePath> sink) {
+        return planDeliveryPath(dispatches, mode, deadline, (planned, total) -> { }, sink);
+    }
+
+    // Plans every date group, passing each drone path to sink, returns the totals
+    private DeliveryPathResponse planDeliveryPath(List<MedDispatchRec> dispatches, PlanningMode mode,
+                                                  PlanningDeadline deadline,
+                                                  BiConsumer<Integer, Integer> progress,
+                                                  Consumer<DronePath> sink) {
         if (dispatches == null || dispatches.isEmpty()) {
             return new DeliveryPathResponse(0.0, 0, new ArrayList<>());
         }
 
-        logger.info("Planning delivery path for {} dispatches", dispatches.size());
+        logger.info("Planning delivery path for {} dispatches ({} mode)", dispatches.size(), mode);
 
         // Fetches all necessary data
         List<Drone> allDrones = ilpClientService.getDrones();
@@ -57,9 +119,11 @@ public class PathPlanningService {
         List<DroneForServicePoint> dronesForServicePoints = ilpClientService.getDronesForServicePoints();
         List<RestrictedArea> restrictedAreas = ilpClientService.getRestrictedAreas();
 
-        List<DronePath> allDronePaths = new ArrayList<>();
-        double totalCost = 0.0;
-        int totalMoves = 0;
+        // Eligible drones of every dispatch, evaluated once for the whole request
+        EligibilityMatrix eligibility = availabilityService.eligibilityMatrix(dispatches,
+                allDrones, dronesForServicePoints, servicePoints);
+
+        PlanOutput out = new PlanOutput(sink);
 
         // Groups dispatches by date
         Map<LocalDate, List<MedDispatchRec>> dispatchesByDate = dispatches.stream()
@@ -71,6 +135,9 @@ public class PathPlanningService {
                 .filter(d -> d.getDate() == null)
                 .collect(Collectors.toList());
 
+        int totalGroups = dispatchesByDate.size() + (dispatchesWithoutDate.isEmpty() ? 0 : 1);
+        int plannedGroups = 0;
+
         // Processes each date separately
         for (Map.Entry<LocalDate, List<MedDispatchRec>> entry : dispatchesByDate.entrySet()) {
             LocalDate date = entry.getKey();
@@ -78,169 +145,684 @@ public class PathPlanningService {
 
             logger.info("Processing {} dispatches for date {}", dateDispatches.size(), date);
 
-            DeliveryPathResponse dateResponse = planDispatchesForDate(
-                    dateDispatches, allDrones, servicePoints,
-                    dronesForServicePoints, restrictedAreas);
-
-            allDronePaths.addAll(dateResponse.getDronePaths());
-            totalCost += dateResponse.getTotalCost();
-            totalMoves += dateResponse.getTotalMoves();
+            PlanningContext context = new PlanningContext(allDrones, servicePoints,
+                    dronesForServicePoints, restrictedAreas,
+                    new FleetSchedule(date, dronesForServicePoints), deadline);
+            planDispatches(mode, dateDispatches, context, eligibility, out);
+            progress.accept(++plannedGroups, totalGroups);
         }
 
         // Processes dispatches without dates
         if (!dispatchesWithoutDate.isEmpty()) {
-            DeliveryPathResponse noDateResponse = planDispatchesForDate(
-                    dispatchesWithoutDate, allDrones, servicePoints,
-                    dronesForServicePoints, restrictedAreas);
-
-            allDronePaths.addAll(noDateResponse.getDronePaths());
-            totalCost += noDateResponse.getTotalCost();
-            totalMoves += noDateResponse.getTotalMoves();
+            PlanningContext context = new PlanningContext(allDrones, servicePoints,
+                    dronesForServicePoints, restrictedAreas,
+                    new FleetSchedule(null, dronesForServicePoints), deadline);
+            planDispatches(mode, dispatchesWithoutDate, context, eligibility, out);
+            progress.accept(++plannedGroups, totalGroups);
         }
 
         logger.info("Planned paths: {} dispatches, cost={}, moves={}",
-                dispatches.size(), totalCost, totalMoves);
+                dispatches.size(), out.totalCost, out.totalMoves);
+
+        DeliveryPathResponse response = new DeliveryPathResponse(out.totalCost, out.totalMoves,
+                new ArrayList<>());
+        if (deadline.wasReached()) {
+            logger.warn("Deadline reached, returning partial plan with {} drone paths", out.flights);
+            response.setPartial(true);
+        }
+        return response;
+    }
 
-        return new DeliveryPathResponse(totalCost, totalMoves, allDronePaths);
+    // Plans dispatches for a single date with the requested mode
+    private void planDispatches(PlanningMode mode,
+                                List<MedDispatchRec> dispatches,
+                                PlanningContext context,
+                                EligibilityMatrix eligibility,
+                                PlanOutput out) {
+        switch (mode) {
+            case SINGLE -> planDispatchesForDate(dispatches, context, eligibility, out);
+            case BATCHED -> planToursForDate(dispatches, context, eligibility, out);
+            case OPTIMAL -> planAssignmentForDate(dispatches, context, eligibility, out);
+        }
     }
 
-    // Plans dispatches for a single date (one drone per dispatch)
-    private DeliveryPathResponse planDispatchesForDate(
-            List<MedDispatchRec> dispatches,
-            List<Drone> allDrones,
-            List<ServicePoint> servicePoints,
-            List<DroneForServicePoint> dronesForServicePoints,
-            List<RestrictedArea> restrictedAreas) {
+    // Plans one dispatch against the flights already booked in context, null if no drone can fly it
+    // Eligibility comes from fleet, so a plan session stays on the reference data it was created with
+    Flight planDispatch(MedDispatchRec dispatch, PlanningContext context, FleetSnapshot fleet) {
+        return planSingleFlight(dispatch, fleet.eligibleDrones(dispatch), context);
+    }
 
-        List<DronePath> dronePaths = new ArrayList<>();
-        double totalCost = 0.0;
-        int totalMoves = 0;
+    // Plans dispatches for a single date (cheapest drone per dispatch)
+    private void planDispatchesForDate(
+            List<MedDispatchRec> dispatches,
+            PlanningContext context,
+            EligibilityMatrix eligibility,
+            PlanOutput out) {
 
         // Processes each dispatch
         for (MedDispatchRec dispatch : dispatches) {
-            Drone suitableDrone = findSuitableDrone(dispatch, allDrones, dronesForServicePoints);
-            if (suitableDrone == null) {
+            if (context.getDeadline().reached()) {
+                break;
+            }
+
+            List<String> availableDrones = eligibility.eligibleDrones(dispatch);
+
+            Flight flight = planSingleFlight(dispatch, availableDrones, context);
+            if (flight == null) {
                 logger.warn("No suitable drone found for dispatch {}", dispatch.getId());
                 continue;
             }
 
+            out.add(flight.path(), flight.moves(), flight.cost());
+
+            logger.debug("Drone {} delivers dispatch {}: {} moves, cost {}",
+                    flight.drone().getId(), dispatch.getId(), flight.moves(), flight.cost());
+        }
+    }
+
+    /**
+     * Plans the cheapest round trip for a dispatch:
+     * every candidate is scored with a lower bound on its cost (straight-line moves from
+     * its service point) and kept in a priority queue
+     * only the best few are planned, stopping once no remaining estimate can beat
+     * the cheapest planned flight or the deadline is reached
+     * the chosen flight is booked on the fleet schedule, drones still busy at the
+     * dispatch time are skipped
+     */
+    private Flight planSingleFlight(MedDispatchRec dispatch,
+                                    List<String> candidateDrones,
+                                    PlanningContext context) {
+        PriorityQueue<DroneCandidate> candidates = rankCandidates(dispatch, candidateDrones, context);
+        FleetSchedule schedule = context.getSchedule();
+
+        Flight best = null;
+        int planned = 0;
+
+        while (!candidates.isEmpty()) {
+            DroneCandidate candidate = candidates.poll();
+            if (best != null && (planned >= MAX_PLANNED_CANDIDATES
+                    || candidate.estimatedCost() >= best.cost()
+                    || context.getDeadline().reached())) {
+                break;
+            }
+
+            // Builds complete flight for this drone
+            Drone drone = candidate.drone();
+            DronePath dronePath = buildFlight(drone, candidate.servicePoint(),
+                    List.of(dispatch), context.getRestrictedAreas());
+            if (dronePath == null) {
+                logger.debug("Drone {} cannot deliver dispatch {} within maxMoves",
+                        drone.getId(), dispatch.getId());
+                continue;
+            }
+            planned++;
+
+            // Detours may push the return past the window or into the next booking
+            int flightMoves = countMoves(dronePath);
+            if (!schedule.canFly(drone.getId(), dispatch.getLocalTime(), flightMoves)) {
+                logger.debug("Drone {} is not free for the whole flight of dispatch {}",
+                        drone.getId(), dispatch.getId());
+                continue;
+            }
+
+            // Calculates cost
+            double flightCost = calculateFlightCost(drone, flightMoves, 1);
+            if (best == null || flightCost < best.cost()) {
+                best = new Flight(drone, dronePath, flightMoves, flightCost);
+            }
+        }
+
+        if (best != null) {
+            schedule.book(best.drone().getId(), dispatch.getLocalTime(), best.moves());
+        }
+        return best;
+    }
+
+    // Scores each candidate drone by the estimated cost of a round trip from its service point
+    private PriorityQueue<DroneCandidate> rankCandidates(MedDispatchRec dispatch,
+                                                         List<String> candidateDrones,
+                                                         PlanningContext context) {
+        PriorityQueue<DroneCandidate> candidates = new PriorityQueue<>(
+                Comparator.comparingDouble(DroneCandidate::estimatedCost));
+
+        for (String droneId : candidateDrones) {
+            Drone drone = findDroneById(droneId, context.getDrones());
+            if (drone == null || drone.getCapability() == null) {
+                continue;
+            }
+
             ServicePoint servicePoint = findServicePointForDrone(
-                    suitableDrone.getId(), servicePoints, dronesForServicePoints);
+                    droneId, context.getServicePoints(), context.getDronesForServicePoints());
             if (servicePoint == null) {
-                logger.warn("No service point found for drone {}", suitableDrone.getId());
+                logger.warn("No service point found for drone {}", droneId);
                 continue;
             }
 
-            // Builds complete flight for this drone
-            List<Delivery> deliveries = new ArrayList<>();
-            int flightMoves = 0;
-
-            // ServicePoint → Delivery location
-            List<LngLat> outboundPath = calculateSimplePath(
-                    servicePoint.getLocation(),
-                    dispatch.getDelivery(),
-                    restrictedAreas
-            );
-
-            // Adds hover at delivery (two identical coordinates)
-            outboundPath.add(dispatch.getDelivery());
-            outboundPath.add(dispatch.getDelivery());
-
-            Delivery outboundDelivery = new Delivery(dispatch.getId(), outboundPath);
-            deliveries.add(outboundDelivery);
-
-            // Counts moves for outbound (including hover)
-            int outboundMoves = outboundPath.size() - 1;
-            flightMoves += outboundMoves;
-
-            // Delivery location → ServicePoint (return flight)
-            List<LngLat> returnPath = calculateSimplePath(
-                    dispatch.getDelivery(),
-                    servicePoint.getLocation(),
-                    restrictedAreas
-            );
-
-            // Returns flight has no deliveryId
-            Delivery returnDelivery = new Delivery(-1, returnPath);
-            deliveries.add(returnDelivery);
-
-            // Counts moves for return
-            int returnMoves = returnPath.size() - 1;
-            flightMoves += returnMoves;
-
-            // Creates drone path
-            DronePath dronePath = new DronePath(suitableDrone.getId(), deliveries);
-            dronePaths.add(dronePath);
+            int estimatedMoves = estimateRoundTripMoves(servicePoint.getLocation(), dispatch.getDelivery());
+            if (!context.getSchedule().canFly(droneId, dispatch.getLocalTime(), estimatedMoves)) {
+                continue;
+            }
 
-            // Calculates cost
-            double flightCost = calculateFlightCost(suitableDrone, flightMoves, 1);
+            candidates.add(new DroneCandidate(drone, servicePoint,
+                    calculateFlightCost(drone, estimatedMoves, 1)));
+        }
 
-            totalMoves += flightMoves;
-            totalCost += flightCost;
+        return candidates;
+    }
 
-            logger.debug("Drone {} delivers dispatch {}: {} moves, cost {}",
-                    suitableDrone.getId(), dispatch.getId(), flightMoves, flightCost);
+    // Lower bound on the moves of a round trip including the delivery moves
+    private int estimateRoundTripMoves(LngLat servicePoint, LngLat delivery) {
+        return DroneNavigation.minimumMoves(servicePoint, delivery)
+                + DELIVERY_EXTRA_MOVES
+                + DroneNavigation.minimumMoves(delivery, servicePoint);
+    }
+
+    /**
+     * Plans dispatches for a single date with a min-cost assignment of dispatches to drones:
+     * dispatches are taken in time order, in waves of at most one dispatch per drone
+     * each wave is solved over the dispatch × drone matrix of estimated round-trip costs,
+     * pairs the availability service rejects, that cannot fit maxMoves or that clash
+     * with the fleet schedule are infeasible
+     * an assigned drone whose real path overruns falls back to the cheapest single flight
+     */
+    private void planAssignmentForDate(
+            List<MedDispatchRec> dispatches,
+            PlanningContext context,
+            EligibilityMatrix eligibility,
+            PlanOutput out) {
+
+        FleetSchedule schedule = context.getSchedule();
+        List<Drone> fleet = new ArrayList<>();
+        List<ServicePoint> fleetBases = new ArrayList<>();
+        for (Drone drone : context.getDrones()) {
+            ServicePoint servicePoint = findServicePointForDrone(
+                    drone.getId(), context.getServicePoints(), context.getDronesForServicePoints());
+            if (drone.getCapability() != null && servicePoint != null) {
+                fleet.add(drone);
+                fleetBases.add(servicePoint);
+            }
         }
 
-        return new DeliveryPathResponse(totalCost, totalMoves, dronePaths);
+        List<MedDispatchRec> ordered = new ArrayList<>(dispatches);
+        ordered.sort(Comparator.comparing(MedDispatchRec::getLocalTime,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+
+        int waveSize = Math.max(fleet.size(), 1);
+
+        for (int waveStart = 0; waveStart < ordered.size(); waveStart += waveSize) {
+            if (context.getDeadline().reached()) {
+                break;
+            }
+
+            List<MedDispatchRec> wave = ordered.subList(waveStart,
+                    Math.min(waveStart + waveSize, ordered.size()));
+
+            List<List<String>> availableDrones = new ArrayList<>(wave.size());
+            double[][] costs = new double[wave.size()][fleet.size()];
+
+            for (int i = 0; i < wave.size(); i++) {
+                MedDispatchRec dispatch = wave.get(i);
+                availableDrones.add(eligibility.eligibleDrones(dispatch));
+
+                for (int j = 0; j < fleet.size(); j++) {
+                    Drone drone = fleet.get(j);
+                    int estimatedMoves = estimateRoundTripMoves(
+                            fleetBases.get(j).getLocation(), dispatch.getDelivery());
+
+                    costs[i][j] = eligibility.isEligible(dispatch, drone.getId())
+                            && estimatedMoves <= moveBudget(drone)
+                            && schedule.canFly(drone.getId(), dispatch.getLocalTime(), estimatedMoves)
+                            ? calculateFlightCost(drone, estimatedMoves, 1)
+                            : AssignmentSolver.INFEASIBLE;
+                }
+            }
+
+            int[] assignment = AssignmentSolver.solve(costs);
+
+            for (int i = 0; i < wave.size(); i++) {
+                if (context.getDeadline().reached()) {
+                    break;
+                }
+
+                MedDispatchRec dispatch = wave.get(i);
+                Flight flight = null;
+
+                if (assignment[i] >= 0) {
+                    Drone drone = fleet.get(assignment[i]);
+                    DronePath dronePath = buildFlight(drone, fleetBases.get(assignment[i]),
+                            List.of(dispatch), context.getRestrictedAreas());
+                    if (dronePath != null) {
+                        int flightMoves = countMoves(dronePath);
+                        if (schedule.book(drone.getId(), dispatch.getLocalTime(), flightMoves)) {
+                            flight = new Flight(drone, dronePath, flightMoves,
+                                    calculateFlightCost(drone, flightMoves, 1));
+                        }
+                    }
+                }
+
+                if (flight == null) {
+                    flight = planSingleFlight(dispatch, availableDrones.get(i), context);
+                }
+
+                if (flight == null) {
+                    logger.warn("No suitable drone found for dispatch {}", dispatch.getId());
+                    continue;
+                }
+
+                out.add(flight.path(), flight.moves(), flight.cost());
+
+                logger.debug("Drone {} assigned dispatch {}: {} moves, cost {}",
+                        flight.drone().getId(), dispatch.getId(), flight.moves(), flight.cost());
+            }
+        }
     }
 
-    // Calculates total cost for a flight
-    private double calculateFlightCost(Drone drone, int totalMoves, int numDeliveries) {
-        DroneCapability cap = drone.getCapability();
+    /**
+     * Plans dispatches for a single date as multi-stop tours:
+     * each dispatch is attached to the nearest service point hosting an eligible drone
+     * RouteOptimiser groups the dispatches of every service point into tours
+     * a tour is only accepted if one drone there can fly all of it within
+     * capacity, maxMoves and the pro-rata share of every maxCost
+     * a tour departs at the earliest dispatch time in it and is booked on the fleet schedule
+     * when the deadline is reached optimisation keeps the tours found so far and
+     * the tours not yet flown are dropped
+     */
+    private void planToursForDate(
+            List<MedDispatchRec> dispatches,
+            PlanningContext context,
+            EligibilityMatrix eligibility,
+            PlanOutput out) {
+
+        FleetSchedule schedule = context.getSchedule();
+        Map<String, Drone> dronesById = new HashMap<>();
+        for (Drone drone : context.getDrones()) {
+            dronesById.put(drone.getId(), drone);
+        }
 
-        // Total flight cost
-        double flightCost = cap.getCostInitial() +
-                cap.getCostFinal() +
-                (totalMoves * cap.getCostPerMove());
+        Map<MedDispatchRec, Set<String>> eligibleDrones = new HashMap<>();
+        Map<ServicePoint, List<MedDispatchRec>> dispatchesByServicePoint = new LinkedHashMap<>();
 
-        return flightCost;
+        for (MedDispatchRec dispatch : dispatches) {
+            List<String> availableDrones = eligibility.eligibleDrones(dispatch);
+
+            ServicePoint nearest = null;
+            double nearestDistance = Double.MAX_VALUE;
+            for (String droneId : availableDrones) {
+                ServicePoint servicePoint = findServicePointForDrone(
+                        droneId, context.getServicePoints(), context.getDronesForServicePoints());
+                if (servicePoint == null || !dronesById.containsKey(droneId)) {
+                    continue;
+                }
+
+                double distance = DroneNavigation.euclideanDistance(
+                        servicePoint.getLocation(), dispatch.getDelivery());
+                if (distance < nearestDistance) {
+                    nearestDistance = distance;
+                    nearest = servicePoint;
+                }
+            }
+
+            if (nearest == null) {
+                logger.warn("No suitable drone found for dispatch {}", dispatch.getId());
+                continue;
+            }
+
+            eligibleDrones.put(dispatch, new LinkedHashSet<>(availableDrones));
+            dispatchesByServicePoint.computeIfAbsent(nearest, sp -> new ArrayList<>()).add(dispatch);
+        }
+
+        for (Map.Entry<ServicePoint, List<MedDispatchRec>> entry : dispatchesByServicePoint.entrySet()) {
+            ServicePoint servicePoint = entry.getKey();
+            List<MedDispatchRec> stops = entry.getValue();
+            List<Drone> basedDrones = findDronesAtServicePoint(
+                    servicePoint, dronesById, context.getDronesForServicePoints());
+
+            double[][] distances = RouteOptimiser.distanceMatrix(servicePoint.getLocation(),
+                    stops.stream().map(MedDispatchRec::getDelivery).collect(Collectors.toList()));
+
+            List<List<Integer>> tours = RouteOptimiser.buildTours(distances, tour ->
+                    selectDroneForTour(tour, stops, distances, basedDrones, eligibleDrones, schedule) != null,
+                    context.getDeadline()::reached);
+
+            for (List<Integer> tour : tours) {
+                if (context.getDeadline().reached()) {
+                    break;
+                }
+
+                // Earlier tours are booked by now, so the drone is picked again against the schedule
+                Drone drone = selectDroneForTour(tour, stops, distances, basedDrones, eligibleDrones, schedule);
+                List<MedDispatchRec> tourDispatches = new ArrayList<>(tour.size());
+                for (int stop : tour) {
+                    tourDispatches.add(stops.get(stop));
+                }
+
+                DronePath dronePath = drone == null ? null
+                        : buildFlight(drone, servicePoint, tourDispatches, context.getRestrictedAreas());
+                if (dronePath != null && schedule.book(drone.getId(),
+                        tourDeparture(tour, stops), countMoves(dronePath))) {
+                    int flightMoves = countMoves(dronePath);
+                    double flightCost = calculateFlightCost(drone, flightMoves, tour.size());
+
+                    out.add(dronePath, flightMoves, flightCost);
+
+                    logger.debug("Drone {} flies a tour of {} dispatches: {} moves, cost {}",
+                            drone.getId(), tour.size(), flightMoves, flightCost);
+                    continue;
+                }
+
+                // Detours or earlier bookings broke the tour, flies the stops separately
+                logger.debug("Tour of {} dispatches cannot be flown by one drone, splitting", tour.size());
+                for (MedDispatchRec dispatch : tourDispatches) {
+                    Flight flight = planSingleFlight(dispatch,
+                            new ArrayList<>(eligibleDrones.get(dispatch)), context);
+                    if (flight == null) {
+                        logger.warn("No suitable drone found for dispatch {}", dispatch.getId());
+                        continue;
+                    }
+
+                    out.add(flight.path(), flight.moves(), flight.cost());
+                }
+            }
+        }
+    }
+
+    // Picks the cheapest drone at the service point able to fly the whole tour, null if none can
+    private Drone selectDroneForTour(List<Integer> tour,
+                                     List<MedDispatchRec> stops,
+                                     double[][] distances,
+                                     List<Drone> basedDrones,
+                                     Map<MedDispatchRec, Set<String>> eligibleDrones,
+                                     FleetSchedule schedule) {
+        double load = 0.0;
+        for (int stop : tour) {
+            DeliveryRequirements requirements = stops.get(stop).getRequirements();
+            if (requirements != null && requirements.getCapacity() != null) {
+                load += requirements.getCapacity();
+            }
+        }
+
+        // Straight-line moves plus the delivery moves buildFlight adds per stop, real paths can only be longer
+        int estimatedMoves = (int) Math.ceil(
+                RouteOptimiser.tourLength(tour, distances) / DroneNavigation.STEP)
+                + DELIVERY_EXTRA_MOVES * tour.size();
+        LocalTime departure = tourDeparture(tour, stops);
+
+        Drone bestDrone = null;
+        double bestCost = Double.MAX_VALUE;
+
+        for (Drone drone : basedDrones) {
+            DroneCapability cap = drone.getCapability();
+            if (cap == null || !isEligibleForAll(drone.getId(), tour, stops, eligibleDrones)) {
+                continue;
+            }
+
+            if (cap.getCapacity() != null && cap.getCapacity() < load) {
+                continue;
+            }
+
+            if (cap.getMaxMoves() != null && estimatedMoves > cap.getMaxMoves()) {
+                continue;
+            }
+
+            if (!schedule.canFly(drone.getId(), departure, estimatedMoves)) {
+                continue;
+            }
+
+            double cost = calculateFlightCost(drone, estimatedMoves, tour.size());
+            if (!withinMaxCost(cost / tour.size(), tour, stops)) {
+                continue;
+            }
+
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestDrone = drone;
+            }
+        }
+
+        return bestDrone;
+    }
+
+    // A tour leaves with its earliest dispatch, null if no dispatch in it has a time
+    private LocalTime tourDeparture(List<Integer> tour, List<MedDispatchRec> stops) {
+        LocalTime departure = null;
+        for (int stop : tour) {
+            LocalTime time = stops.get(stop).getLocalTime();
+            if (time != null && (departure == null || time.isBefore(departure))) {
+                departure = time;
+            }
+        }
+        return departure;
     }
 
-    // Generates GeoJSON LineString for delivery path.
-    public String calcDeliveryPathAsGeoJson(List<MedDispatchRec> dispatches) {
-        DeliveryPathResponse response = calcDeliveryPath(dispatches);
+    private boolean isEligibleForAll(String droneId, List<Integer> tour,
+                                     List<MedDispatchRec> stops,
+                                     Map<MedDispatchRec, Set<String>> eligibleDrones) {
+        for (int stop : tour) {
+            if (!eligibleDrones.get(stops.get(stop)).contains(droneId)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        if (response.getDronePaths().isEmpty()) {
-            return "{\"type\":\"FeatureCollection\",\"features\":[]}";
+    // Checks the pro-rata cost share of each delivery against its maxCost
+    private boolean withinMaxCost(double costShare, List<Integer> tour, List<MedDispatchRec> stops) {
+        for (int stop : tour) {
+            DeliveryRequirements requirements = stops.get(stop).getRequirements();
+            if (requirements != null && requirements.getMaxCost() != null
+                    && costShare > requirements.getMaxCost()) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        // Takes first drone path
-        DronePath dronePath = response.getDronePaths().get(0);
+    /**
+     * Builds the flight of one drone visiting the dispatches in order:
+     * ServicePoint → first delivery, then delivery → delivery, each with a hover at the end
+     * last delivery → ServicePoint as the return flight (deliveryId = -1)
+     * Returns null when the flight cannot be completed within the drone's maxMoves
+     */
+    private DronePath buildFlight(Drone drone, ServicePoint servicePoint,
+                                  List<MedDispatchRec> stops,
+                                  List<RestrictedArea> restrictedAreas) {
+        int legs = stops.size() + 1;
+        LngLat[] waypoints = new LngLat[legs + 1];
+        waypoints[0] = servicePoint.getLocation();
+        for (int i = 0; i < stops.size(); i++) {
+            waypoints[i + 1] = stops.get(i).getDelivery();
+        }
+        waypoints[legs] = servicePoint.getLocation();
+
+        // Lower bound on the moves still needed from leg i onwards
+        int[] remainingLowerBound = new int[legs + 1];
+        for (int i = legs - 1; i >= 0; i--) {
+            int legExtra = i < stops.size() ? DELIVERY_EXTRA_MOVES : 0;
+            remainingLowerBound[i] = remainingLowerBound[i + 1] + legExtra
+                    + DroneNavigation.minimumMoves(waypoints[i], waypoints[i + 1]);
+        }
 
-        StringBuilder geoJson = new StringBuilder();
-        geoJson.append("{\"type\":\"LineString\",\"coordinates\":[");
+        int budget = moveBudget(drone);
+        if (remainingLowerBound[0] > budget) {
+            return null;
+        }
 
-        boolean first = true;
-        for (Delivery delivery : dronePath.getDeliveries()) {
-            for (LngLat point : delivery.getFlightPath()) {
-                if (!first) geoJson.append(",");
-                geoJson.append(String.format("[%.6f,%.6f]", point.getLng(), point.getLat()));
-                first = false;
+        List<Delivery> deliveries = new ArrayList<>();
+        int usedMoves = 0;
+
+        for (int i = 0; i < legs; i++) {
+            boolean deliveryLeg = i < stops.size();
+            int legExtra = deliveryLeg ? DELIVERY_EXTRA_MOVES : 0;
+            int legBudget = budget - usedMoves - remainingLowerBound[i + 1] - legExtra;
+
+            FlightPath legPath = calculateSimplePath(waypoints[i], waypoints[i + 1],
+                    restrictedAreas, legBudget);
+            if (legPath == null) {
+                return null;
+            }
+
+            if (deliveryLeg) {
+                // Adds hover at delivery (two identical coordinates)
+                legPath.add(waypoints[i + 1]);
+                legPath.add(waypoints[i + 1]);
+                deliveries.add(new Delivery(stops.get(i).getId(), legPath));
+            } else {
+                // Returns flight has no deliveryId
+                deliveries.add(new Delivery(-1, legPath));
             }
+
+            usedMoves += legPath.size() - 1;
         }
 
-        geoJson.append("]}");
-        return geoJson.toString();
+        return new DronePath(drone.getId(), deliveries);
     }
 
-    // Finds suitable drone for a dispatch using availability service.
-    private Drone findSuitableDrone(MedDispatchRec dispatch, List<Drone> allDrones,
-                                    List<DroneForServicePoint> dronesForServicePoints) {
-        List<String> availableDrones = availabilityService.queryAvailableDrones(
-                List.of(dispatch));
+    /**
+     * Re-plans only the legs of a flight that enter one of the changed no-fly zones:
+     * a leg is checked point by point only when its bounding box overlaps the zone's
+     * the flight is returned unchanged when no leg is affected
+     * returns null when the detours no longer fit the drone's maxMoves
+     */
+    Flight replanAffectedLegs(Flight flight, List<RestrictedArea> changedAreas,
+                              List<RestrictedArea> restrictedAreas) {
+        List<Delivery> legs = flight.path().getDeliveries();
+        List<double[]> areaBoxes = new ArrayList<>(changedAreas.size());
+        for (RestrictedArea area : changedAreas) {
+            areaBoxes.add(boundingBox(area.getVertices()));
+        }
+
+        LngLat base = legs.get(0).getFlightPath().get(0);
+        List<Delivery> replanned = new ArrayList<>(legs);
+        int moves = flight.moves();
+        boolean changed = false;
+
+        for (int i = 0; i < legs.size(); i++) {
+            List<LngLat> legPath = legs.get(i).getFlightPath();
+            if (!entersAny(legPath, changedAreas, areaBoxes)) {
+                continue;
+            }
+
+            // Delivery legs end with the hover on the delivery point, the return leg ends near the base
+            boolean deliveryLeg = legs.get(i).getDeliveryId() != -1;
+            LngLat start = legPath.get(0);
+            LngLat goal = deliveryLeg ? legPath.get(legPath.size() - 1) : base;
+            int legExtra = deliveryLeg ? DELIVERY_EXTRA_MOVES : 0;
+            int otherMoves = moves - (legPath.size() - 1);
+
+            FlightPath newPath = calculateSimplePath(start, goal, restrictedAreas,
+                    moveBudget(flight.drone()) - otherMoves - legExtra);
+            if (newPath == null) {
+                return null;
+            }
+            if (deliveryLeg) {
+                newPath.add(goal);
+                newPath.add(goal);
+            }
 
-        for (String droneId : availableDrones) {
-            for (Drone drone : allDrones) {
-                if (drone.getId().equals(droneId)) {
-                    return drone;
+            replanned.set(i, new Delivery(legs.get(i).getDeliveryId(), newPath));
+            moves = otherMoves + newPath.size() - 1;
+            changed = true;
+        }
+
+        if (!changed) {
+            return flight;
+        }
+
+        DronePath dronePath = new DronePath(flight.drone().getId(), replanned);
+        return new Flight(flight.drone(), dronePath, moves,
+                calculateFlightCost(flight.drone(), moves, legs.size() - 1));
+    }
+
+    // Checking if any point of the leg lies in one of the areas, boxes filter out distant areas first
+    private boolean entersAny(List<LngLat> legPath, List<RestrictedArea> areas, List<double[]> areaBoxes) {
+        double[] legBox = boundingBox(legPath);
+        for (int a = 0; a < areas.size(); a++) {
+            if (!boxesOverlap(legBox, areaBoxes.get(a))) {
+                continue;
+            }
+            for (LngLat point : legPath) {
+                if (isInNoFlyZone(point, List.of(areas.get(a)))) {
+                    return true;
                 }
             }
         }
+        return false;
+    }
+
+    // Bounding box as {minLng, minLat, maxLng, maxLat}
+    private static double[] boundingBox(List<LngLat> points) {
+        double[] box = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (LngLat point : points) {
+            box[0] = Math.min(box[0], point.getLng());
+            box[1] = Math.min(box[1], point.getLat());
+            box[2] = Math.max(box[2], point.getLng());
+            box[3] = Math.max(box[3], point.getLat());
+        }
+        return box;
+    }
+
+    private static boolean boxesOverlap(double[] a, double[] b) {
+        return a[0] <= b[2] && b[0] <= a[2] && a[1] <= b[3] && b[1] <= a[3];
+    }
+
+    // Move budget for one flight, drones without maxMoves get the search iteration limit
+    private int moveBudget(Drone drone) {
+        DroneCapability cap = drone.getCapability();
+        if (cap == null || cap.getMaxMoves() == null) {
+            return MAX_PATH_ITERATIONS;
+        }
+        return Math.min(cap.getMaxMoves(), MAX_PATH_ITERATIONS);
+    }
+
+    // Counts moves of a flight, each leg has one move less than coordinates (hover included)
+    private int countMoves(DronePath dronePath) {
+        int moves = 0;
+        for (Delivery delivery : dronePath.getDeliveries()) {
+            moves += delivery.getFlightPath().size() - 1;
+        }
+        return moves;
+    }
+
+    // Calculates total cost for a flight
+    private double calculateFlightCost(Drone drone, int totalMoves, int numDeliveries) {
+        DroneCapability cap = drone.getCapability();
+
+        // Total flight cost
+        double flightCost = cap.getCostInitial() +
+                cap.getCostFinal() +
+                (totalMoves * cap.getCostPerMove());
 
+        return flightCost;
+    }
+
+    private Drone findDroneById(String droneId, List<Drone> drones) {
+        for (Drone drone : drones) {
+            if (drone.getId().equals(droneId)) {
+                return drone;
+            }
+        }
         return null;
     }
 
+    // Finds drones stationed at the service point
+    private List<Drone> findDronesAtServicePoint(ServicePoint servicePoint,
+                                                 Map<String, Drone> dronesById,
+                                                 List<DroneForServicePoint> dronesForServicePoints) {
+        List<Drone> drones = new ArrayList<>();
+        for (DroneForServicePoint dfsp : dronesForServicePoints) {
+            if (!servicePoint.getId().equals(dfsp.getServicePointId())) {
+                continue;
+            }
+            for (DroneForServicePoint.DroneAvailability da : dfsp.getDrones()) {
+                Drone drone = dronesById.get(da.getId());
+                if (drone != null && !drones.contains(drone)) {
+                    drones.add(drone);
+                }
+            }
+        }
+        return drones;
+    }
+
     // Find service point where drone is stationed.
     private ServicePoint findServicePointForDrone(String droneId,
                                                   List<ServicePoint> servicePoints,
@@ -260,28 +842,37 @@ public class PathPlanningService {
         return null;
     }
 
-    // Calculates simple path using greedy approach.
-    private List<LngLat> calculateSimplePath(LngLat start, LngLat goal,
-                                             List<RestrictedArea> restrictedAreas) {
-        List<LngLat> path = new ArrayList<>();
+    /**
+     * Calculates simple path using greedy approach.
+     * maxMoves is a hard budget: the search is skipped when the straight-line lower bound
+     * already exceeds it, and abandoned (null) once the budget is spent without arriving
+     */
+    private FlightPath calculateSimplePath(LngLat start, LngLat goal,
+                                           List<RestrictedArea> restrictedAreas,
+                                           int maxMoves) {
+        if (DroneNavigation.minimumMoves(start, goal) > maxMoves) {
+            return null;
+        }
+
+        FlightPath path = new FlightPath(DroneNavigation.minimumMoves(start, goal) + 3);
         path.add(start); // First coordinate is starting position
 
         LngLat current = start;
-        int maxIterations = 10000;
         int iterations = 0;
 
-        while (!DroneNavigation.isClose(current, goal) && iterations < maxIterations) {
+        while (!DroneNavigation.isClose(current, goal)) {
+            if (iterations >= maxMoves) {
+                logger.debug("Path search abandoned after {} moves", iterations);
+                return null;
+            }
+
             double bestAngle = findBestAngle(current, goal, restrictedAreas);
             LngLat next = DroneNavigation.nextPosition(current, bestAngle);
-            path.add(next);
+            path.addMove(next, bestAngle);
             current = next;
             iterations++;
         }
 
-        if (iterations >= maxIterations) {
-            logger.warn("Path calculation hit max iterations");
-        }
-
         return path;
     }
 
@@ -322,4 +913,31 @@ public class PathPlanningService {
         }
         return false;
     }
+
+    // A planned flight of one drone with its move count and cost, shared with plan sessions
+    record Flight(Drone drone, DronePath path, int moves, double cost) {
+    }
+
+    // Running totals of a plan, forwarding every drone path to the sink
+    private static class PlanOutput {
+        private final Consumer<DronePath> sink;
+        private double totalCost;
+        private int totalMoves;
+        private int flights;
+
+        private PlanOutput(Consumer<DronePath> sink) {
+            this.sink = sink;
+        }
+
+        private void add(DronePath dronePath, int moves, double cost) {
+            sink.accept(dronePath);
+            totalCost += cost;
+            totalMoves += moves;
+            flights++;
+        }
+    }
+
+    // A drone considered for a dispatch, ranked by a lower bound on its flight cost
+    private record DroneCandidate(Drone drone, ServicePoint servicePoint, double estimatedCost) {
+    }
 }
@@ -0,0 +1,363 @@
+package uk.ac.ed.acp.cw2.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.DronePath;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.dto.PlanDelta;
+import uk.ac.ed.acp.cw2.model.Drone;
+import uk.ac.ed.acp.cw2.model.DroneForServicePoint;
+import uk.ac.ed.acp.cw2.model.LngLat;
+import uk.ac.ed.acp.cw2.model.RestrictedArea;
+import uk.ac.ed.acp.cw2.model.ServicePoint;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stateful plan sessions for interactive editing of a day's dispatches:
+ * reference data is fetched once when the session is created,
+ * drone eligibility comes from a FleetSnapshot of that data, not from the live ILP data
+ * every dispatch is flown separately and booked on the FleetSchedule of its date
+ * adding a dispatch plans only that dispatch, existing flights stay untouched
+ * removing a dispatch frees its drone and retries the unplanned dispatches of the same date
+ * refreshing restricted areas re-plans only the legs entering new or changed no-fly zones
+ * every edit returns a PlanDelta, unknown plans and dispatches give null
+ * sessions idle for longer than the idle TTL are evicted lazily on later calls,
+ * creating a session beyond the maximum count is rejected (RejectedExecutionException)
+ */
+@Service
+public class PlanSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanSessionService.class);
+
+    private final IlpClientService ilpClientService;
+    private final PathPlanningService pathPlanningService;
+
+    private final long idleTtlMillis;
+    private final int maxSessions;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PlanSessionService(IlpClientService ilpClientService,
+                              PathPlanningService pathPlanningService,
+                              @Value("${planning.sessions.idle-ttl-seconds:1800}") long idleTtlSeconds,
+                              @Value("${planning.sessions.max-sessions:256}") int maxSessions) {
+        this.ilpClientService = ilpClientService;
+        this.pathPlanningService = pathPlanningService;
+        this.idleTtlMillis = TimeUnit.SECONDS.toMillis(idleTtlSeconds);
+        this.maxSessions = maxSessions;
+    }
+
+    // Creates a session and plans the initial dispatches, throws RejectedExecutionException at the session limit
+    public PlanDelta createPlan(List<MedDispatchRec> dispatches) {
+        // Checked before planning so a full service does no work, and again when publishing
+        evictExpired();
+        checkCapacity();
+
+        Session session = new Session(UUID.randomUUID().toString(),
+                ilpClientService.getDrones(),
+                ilpClientService.getServicePoints(),
+                ilpClientService.getDronesForServicePoints(),
+                ilpClientService.getRestrictedAreas());
+
+        List<DronePath> added = new ArrayList<>();
+        if (dispatches != null) {
+            for (MedDispatchRec dispatch : dispatches) {
+                validateNew(session, dispatch);
+                session.dispatches.put(dispatch.getId(), dispatch);
+                plan(session, dispatch, added);
+            }
+        }
+
+        // Published only once fully planned, so no other request can see it half-built
+        synchronized (sessions) {
+            checkCapacity();
+            session.lastAccess = System.currentTimeMillis();
+            sessions.put(session.id, session);
+        }
+        logger.info("Created plan {} with {} dispatches", session.id, session.dispatches.size());
+
+        return delta(session, added, List.of());
+    }
+
+    // Adds one dispatch to the plan, null if the plan does not exist
+    public PlanDelta addDispatch(String planId, MedDispatchRec dispatch) {
+        Session session = session(planId);
+        if (session == null) {
+            return null;
+        }
+
+        synchronized (session) {
+            validateNew(session, dispatch);
+            session.dispatches.put(dispatch.getId(), dispatch);
+
+            List<DronePath> added = new ArrayList<>();
+            plan(session, dispatch, added);
+            return delta(session, added, List.of());
+        }
+    }
+
+    // Cancels one dispatch, null if the plan or the dispatch does not exist
+    public PlanDelta removeDispatch(String planId, int dispatchId) {
+        Session session = session(planId);
+        if (session == null) {
+            return null;
+        }
+
+        synchronized (session) {
+            MedDispatchRec dispatch = session.dispatches.remove(dispatchId);
+            if (dispatch == null) {
+                return null;
+            }
+
+            PathPlanningService.Flight flight = session.flights.remove(dispatchId);
+            if (flight == null) {
+                return delta(session, List.of(), List.of());
+            }
+
+            session.totalCost -= flight.cost();
+            session.totalMoves -= flight.moves();
+            session.context(dispatch.getLocalDate()).getSchedule()
+                    .release(flight.drone().getId(), dispatch.getLocalTime());
+
+            // Only dispatches of the same date can use the freed drone time
+            List<DronePath> added = new ArrayList<>();
+            for (MedDispatchRec waiting : session.dispatches.values()) {
+                if (!session.flights.containsKey(waiting.getId())
+                        && Objects.equals(waiting.getLocalDate(), dispatch.getLocalDate())) {
+                    plan(session, waiting, added);
+                }
+            }
+
+            return delta(session, added, List.of(dispatchId));
+        }
+    }
+
+    // Current plan of the session, null if the plan does not exist
+    public DeliveryPathResponse getPlan(String planId) {
+        Session session = session(planId);
+        if (session == null) {
+            return null;
+        }
+
+        synchronized (session) {
+            List<DronePath> dronePaths = new ArrayList<>();
+            for (PathPlanningService.Flight flight : session.flights.values()) {
+                dronePaths.add(flight.path());
+            }
+            return new DeliveryPathResponse(session.totalCost, session.totalMoves, dronePaths);
+        }
+    }
+
+    /**
+     * Applies the current restricted areas to every session:
+     * only no-fly zones that are new or whose vertices changed are checked against the legs
+     * a re-planned flight is reported as removed and added again
+     * a flight whose detour no longer fits is re-planned from scratch for its dispatch
+     * returns the deltas of the sessions that changed
+     */
+    public List<PlanDelta> refreshRestrictedAreas() {
+        evictExpired();
+
+        List<RestrictedArea> current = ilpClientService.getRestrictedAreas();
+        List<PlanDelta> deltas = new ArrayList<>();
+
+        for (Session session : sessions.values()) {
+            synchronized (session) {
+                List<RestrictedArea> changed = changedNoFlyZones(session.restrictedAreas, current);
+                session.useRestrictedAreas(current);
+                if (changed.isEmpty()) {
+                    continue;
+                }
+
+                List<DronePath> added = new ArrayList<>();
+                List<Integer> removed = new ArrayList<>();
+
+                List<Map.Entry<Integer, PathPlanningService.Flight>> flights =
+                        new ArrayList<>(session.flights.entrySet());
+                for (Map.Entry<Integer, PathPlanningService.Flight> entry : flights) {
+                    PathPlanningService.Flight flight = entry.getValue();
+                    PathPlanningService.Flight updated = pathPlanningService.replanAffectedLegs(
+                            flight, changed, current);
+                    if (updated == flight) {
+                        continue;
+                    }
+
+                    MedDispatchRec dispatch = session.dispatches.get(entry.getKey());
+                    FleetSchedule schedule = session.context(dispatch.getLocalDate()).getSchedule();
+
+                    session.flights.remove(entry.getKey());
+                    session.totalCost -= flight.cost();
+                    session.totalMoves -= flight.moves();
+                    schedule.release(flight.drone().getId(), dispatch.getLocalTime());
+                    removed.add(entry.getKey());
+
+                    if (updated != null && schedule.book(updated.drone().getId(),
+                            dispatch.getLocalTime(), updated.moves())) {
+                        session.flights.put(entry.getKey(), updated);
+                        session.totalCost += updated.cost();
+                        session.totalMoves += updated.moves();
+                        added.add(updated.path());
+                    } else {
+                        plan(session, dispatch, added);
+                    }
+                }
+
+                if (!removed.isEmpty()) {
+                    logger.info("Plan {}: re-planned {} flights after restricted area change",
+                            session.id, removed.size());
+                    deltas.add(delta(session, added, removed));
+                }
+            }
+        }
+
+        return deltas;
+    }
+
+    // Drops the session, returns false if it did not exist
+    public boolean deletePlan(String planId) {
+        evictExpired();
+        return sessions.remove(planId) != null;
+    }
+
+    // Live session with the id, marked as used now, null if unknown or expired
+    private Session session(String planId) {
+        evictExpired();
+
+        Session session = sessions.get(planId);
+        if (session != null) {
+            session.lastAccess = System.currentTimeMillis();
+        }
+        return session;
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(session -> now - session.lastAccess >= idleTtlMillis);
+    }
+
+    private void checkCapacity() {
+        if (sessions.size() >= maxSessions) {
+            logger.warn("Plan session limit of {} reached, rejecting new session", maxSessions);
+            throw new RejectedExecutionException("Plan session limit reached");
+        }
+    }
+
+    // No-fly zones in current that are new or whose vertices differ from previous
+    private List<RestrictedArea> changedNoFlyZones(List<RestrictedArea> previous,
+                                                   List<RestrictedArea> current) {
+        Map<Integer, RestrictedArea> previousById = new HashMap<>();
+        for (RestrictedArea area : previous) {
+            if (area.isNoFlyZone()) {
+                previousById.put(area.getId(), area);
+            }
+        }
+
+        List<RestrictedArea> changed = new ArrayList<>();
+        for (RestrictedArea area : current) {
+            if (area.isNoFlyZone() && !sameVertices(previousById.get(area.getId()), area)) {
+                changed.add(area);
+            }
+        }
+        return changed;
+    }
+
+    private boolean sameVertices(RestrictedArea previous, RestrictedArea current) {
+        if (previous == null || previous.getVertices().size() != current.getVertices().size()) {
+            return false;
+        }
+        for (int i = 0; i < current.getVertices().size(); i++) {
+            LngLat a = previous.getVertices().get(i);
+            LngLat b = current.getVertices().get(i);
+            if (!Objects.equals(a.getLng(), b.getLng()) || !Objects.equals(a.getLat(), b.getLat())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void validateNew(Session session, MedDispatchRec dispatch) {
+        if (dispatch == null || dispatch.getId() == null) {
+            throw new IllegalArgumentException("Dispatch id is required");
+        }
+        if (session.dispatches.containsKey(dispatch.getId())) {
+            throw new IllegalArgumentException("Dispatch already in plan: " + dispatch.getId());
+        }
+    }
+
+    // Plans the dispatch into the session, adding its path to added on success
+    private void plan(Session session, MedDispatchRec dispatch, List<DronePath> added) {
+        PathPlanningService.Flight flight = pathPlanningService.planDispatch(
+                dispatch, session.context(dispatch.getLocalDate()), session.fleet);
+        if (flight == null) {
+            logger.debug("Plan {}: no drone for dispatch {}", session.id, dispatch.getId());
+            return;
+        }
+
+        session.flights.put(dispatch.getId(), flight);
+        session.totalCost += flight.cost();
+        session.totalMoves += flight.moves();
+        added.add(flight.path());
+    }
+
+    private PlanDelta delta(Session session, List<DronePath> added, List<Integer> removed) {
+        List<Integer> unplanned = new ArrayList<>();
+        for (Integer dispatchId : session.dispatches.keySet()) {
+            if (!session.flights.containsKey(dispatchId)) {
+                unplanned.add(dispatchId);
+            }
+        }
+        return new PlanDelta(session.id, added, removed, unplanned,
+                session.totalCost, session.totalMoves);
+    }
+
+    // State of one session, guarded by synchronizing on the session
+    private static class Session {
+        private final String id;
+        private final List<Drone> drones;
+        private final List<ServicePoint> servicePoints;
+        private final List<DroneForServicePoint> dronesForServicePoints;
+        private final FleetSnapshot fleet;
+        private List<RestrictedArea> restrictedAreas;
+        private volatile long lastAccess;
+
+        // One context per date, dispatches without a date share the null key
+        private final Map<LocalDate, PlanningContext> contexts = new HashMap<>();
+        private final Map<Integer, MedDispatchRec> dispatches = new LinkedHashMap<>();
+        private final Map<Integer, PathPlanningService.Flight> flights = new LinkedHashMap<>();
+        private double totalCost;
+        private int totalMoves;
+
+        private Session(String id, List<Drone> drones, List<ServicePoint> servicePoints,
+                        List<DroneForServicePoint> dronesForServicePoints,
+                        List<RestrictedArea> restrictedAreas) {
+            this.id = id;
+            this.drones = drones;
+            this.servicePoints = servicePoints;
+            this.dronesForServicePoints = dronesForServicePoints;
+            this.fleet = FleetSnapshot.build(drones, dronesForServicePoints, servicePoints);
+            this.restrictedAreas = restrictedAreas;
+        }
+
+        // Swaps in new restricted areas, keeping the bookings of every date
+        private void useRestrictedAreas(List<RestrictedArea> areas) {
+            restrictedAreas = areas;
+            contexts.replaceAll((date, context) -> new PlanningContext(drones, servicePoints,
+                    dronesForServicePoints, areas, context.getSchedule(), context.getDeadline()));
+        }
+
+        private PlanningContext context(LocalDate date) {
+            return contexts.computeIfAbsent(date, d -> new PlanningContext(drones, servicePoints,
+                    dronesForServicePoints, restrictedAreas,
+                    new FleetSchedule(d, dronesForServicePoints), PlanningDeadline.none()));
+        }
+    }
+}
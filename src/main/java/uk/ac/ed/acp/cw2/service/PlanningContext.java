@@ -0,0 +1,45 @@
+package uk.ac.ed.acp.cw2.service;
+
+import uk.ac.ed.acp.cw2.model.Drone;
+import uk.ac.ed.acp.cw2.model.DroneForServicePoint;
+import uk.ac.ed.acp.cw2.model.RestrictedArea;
+import uk.ac.ed.acp.cw2.model.ServicePoint;
+
+import java.util.List;
+
+/**
+ * Everything the planner needs for the dispatches of one date:
+ * reference data fetched from the ILP service
+ * the fleet schedule holding the flights already booked that day
+ * the deadline of the request the dates are planned for
+ */
+public class PlanningContext {
+
+    private final List<Drone> drones;
+    private final List<ServicePoint> servicePoints;
+    private final List<DroneForServicePoint> dronesForServicePoints;
+    private final List<RestrictedArea> restrictedAreas;
+    private final FleetSchedule schedule;
+    private final PlanningDeadline deadline;
+
+    public PlanningContext(List<Drone> drones,
+                           List<ServicePoint> servicePoints,
+                           List<DroneForServicePoint> dronesForServicePoints,
+                           List<RestrictedArea> restrictedAreas,
+                           FleetSchedule schedule,
+                           PlanningDeadline deadline) {
+        this.drones = drones;
+        this.servicePoints = servicePoints;
+        this.dronesForServicePoints = dronesForServicePoints;
+        this.restrictedAreas = restrictedAreas;
+        this.schedule = schedule;
+        this.deadline = deadline;
+    }
+
+    public List<Drone> getDrones() { return drones; }
+    public List<ServicePoint> getServicePoints() { return servicePoints; }
+    public List<DroneForServicePoint> getDronesForServicePoints() { return dronesForServicePoints; }
+    public List<RestrictedArea> getRestrictedAreas() { return restrictedAreas; }
+    public FleetSchedule getSchedule() { return schedule; }
+    public PlanningDeadline getDeadline() { return deadline; }
+}
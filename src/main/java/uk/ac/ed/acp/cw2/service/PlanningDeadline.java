@@ -0,0 +1,51 @@
+package uk.ac.ed.acp.cw2.service;
+
+/**
+ * Time budget of one planning request:
+ * the planner checks reached() between units of work and keeps the best plan found so far
+ * once the deadline has been reached it stays reached, wasReached() then marks the plan as partial
+ * none() never expires, so planning without a deadline behaves as before
+ */
+public class PlanningDeadline {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final long deadlineNanos;
+    private volatile boolean reached;
+
+    private PlanningDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static PlanningDeadline none() {
+        return new PlanningDeadline(NO_DEADLINE);
+    }
+
+    // Deadline the given number of milliseconds from now
+    public static PlanningDeadline afterMillis(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Deadline must be positive: " + millis);
+        }
+        return new PlanningDeadline(System.nanoTime() + millis * 1_000_000L);
+    }
+
+    // Parsing the deadline request parameter or header, null means no deadline
+    public static PlanningDeadline fromMillis(Long millis) {
+        return millis == null ? none() : afterMillis(millis);
+    }
+
+    // Checking if the time is up, latches so later checks agree with earlier ones
+    public boolean reached() {
+        if (reached) {
+            return true;
+        }
+        if (deadlineNanos != NO_DEADLINE && System.nanoTime() - deadlineNanos >= 0) {
+            reached = true;
+        }
+        return reached;
+    }
+
+    public boolean wasReached() {
+        return reached;
+    }
+}
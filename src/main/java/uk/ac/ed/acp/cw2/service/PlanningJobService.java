@@ -0,0 +1,160 @@
+package uk.ac.ed.acp.cw2.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.dto.PlanningJobStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Asynchronous planning jobs for large batches:
+ * jobs run calcDeliveryPath on a fixed worker pool fed by a bounded queue,
+ * a full queue rejects the submission (RejectedExecutionException) instead of piling up work
+ * progress is the number of planned date groups
+ * long-polls hold no thread, they complete from the worker or from the wait timeout
+ * finished jobs are kept for the result TTL and evicted lazily on later calls
+ * unknown or expired jobs give null
+ */
+@Service
+public class PlanningJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanningJobService.class);
+
+    // Upper bound on a single long-poll wait
+    public static final long MAX_WAIT_MILLIS = 30_000;
+
+    public enum JobState { QUEUED, RUNNING, DONE, FAILED }
+
+    private final PathPlanningService pathPlanningService;
+    private final ThreadPoolExecutor executor;
+    private final long resultTtlMillis;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PlanningJobService(PathPlanningService pathPlanningService,
+                              @Value("${planning.jobs.workers:2}") int workers,
+                              @Value("${planning.jobs.queue-capacity:16}") int queueCapacity,
+                              @Value("${planning.jobs.result-ttl-seconds:600}") long resultTtlSeconds) {
+        this.pathPlanningService = pathPlanningService;
+        this.resultTtlMillis = TimeUnit.SECONDS.toMillis(resultTtlSeconds);
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "planning-job");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Queues a planning job, throws RejectedExecutionException when the queue is full
+    public PlanningJobStatus submit(List<MedDispatchRec> dispatches, PlanningMode mode) {
+        evictExpired();
+
+        Job job = new Job(UUID.randomUUID().toString());
+        List<MedDispatchRec> batch = dispatches == null ? List.of() : new ArrayList<>(dispatches);
+
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, batch, mode));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            logger.warn("Planning job queue full, rejecting batch of {} dispatches", batch.size());
+            throw e;
+        }
+
+        logger.info("Queued planning job {} with {} dispatches ({} mode)", job.id, batch.size(), mode);
+        return job.status();
+    }
+
+    // Current status of the job, null if unknown
+    public PlanningJobStatus getStatus(String jobId) {
+        evictExpired();
+
+        Job job = jobs.get(jobId);
+        return job == null ? null : job.status();
+    }
+
+    // Status of the job once it finishes or waitMillis (at most MAX_WAIT_MILLIS) pass (long-poll), null if unknown
+    public CompletableFuture<PlanningJobStatus> getStatus(String jobId, long waitMillis) {
+        evictExpired();
+
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+        if (waitMillis <= 0 || job.finished.isDone()) {
+            return CompletableFuture.completedFuture(job.status());
+        }
+
+        // A copy, so the timeout of one poll does not complete the job for the others
+        return job.finished.copy()
+                .completeOnTimeout(null, Math.min(waitMillis, MAX_WAIT_MILLIS), TimeUnit.MILLISECONDS)
+                .thenApply(ignored -> job.status());
+    }
+
+    // Result of a finished job, null if unknown or not DONE
+    public DeliveryPathResponse getResult(String jobId) {
+        evictExpired();
+
+        Job job = jobs.get(jobId);
+        return job == null || job.state != JobState.DONE ? null : job.result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(Job job, List<MedDispatchRec> dispatches, PlanningMode mode) {
+        job.state = JobState.RUNNING;
+        try {
+            job.result = pathPlanningService.calcDeliveryPath(dispatches, mode, PlanningDeadline.none(),
+                    (planned, total) -> {
+                        job.plannedGroups = planned;
+                        job.totalGroups = total;
+                    });
+            job.state = JobState.DONE;
+        } catch (RuntimeException e) {
+            logger.error("Planning job {} failed", job.id, e);
+            job.error = e.getMessage();
+            job.state = JobState.FAILED;
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+            job.finished.complete(null);
+        }
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.finishedAt > 0 && now - job.finishedAt >= resultTtlMillis);
+    }
+
+    // One job, written by its worker and read by polling requests
+    private static class Job {
+        private final String id;
+        private final CompletableFuture<Void> finished = new CompletableFuture<>();
+        private volatile JobState state = JobState.QUEUED;
+        private volatile int plannedGroups;
+        private volatile int totalGroups;
+        private volatile DeliveryPathResponse result;
+        private volatile String error;
+        private volatile long finishedAt;
+
+        private Job(String id) {
+            this.id = id;
+        }
+
+        private PlanningJobStatus status() {
+            return new PlanningJobStatus(id, state.name(), plannedGroups, totalGroups, error);
+        }
+    }
+}
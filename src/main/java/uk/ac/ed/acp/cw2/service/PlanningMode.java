@@ -0,0 +1,28 @@
+package uk.ac.ed.acp.cw2.service;
+
+/**
+ * Strategy used by calcDeliveryPath to turn dispatches into drone flights:
+ * SINGLE: one out-and-back flight per dispatch
+ * BATCHED: dispatches grouped into multi-stop tours per drone
+ * OPTIMAL: one flight per dispatch with a min-cost assignment of dispatches to drones
+ */
+public enum PlanningMode {
+    SINGLE,
+    BATCHED,
+    OPTIMAL;
+
+    // Parsing the mode request parameter, case-insensitive and defaulting to SINGLE
+    public static PlanningMode fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return SINGLE;
+        }
+
+        for (PlanningMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown planning mode: " + value);
+    }
+}
@@ -1,7 +1,5 @@
 package uk.ac.ed.acp.cw2.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,10 +8,12 @@ import uk.ac.ed.acp.cw2.dto.QueryAttribute;
 import uk.ac.ed.acp.cw2.model.Drone;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
 // Service for querying drones based on various criteria
+// Conditions are compiled once per request into a DroneQuery and evaluated as scans over DroneColumns
 
 @Service
 public class QueryService {
@@ -21,12 +21,12 @@ public class QueryService {
     private static final Logger logger = LoggerFactory.getLogger(QueryService.class);
 
     private final IlpClientService ilpClientService;
-    private final ObjectMapper objectMapper;
+
+    private volatile DroneColumns columns;
 
     @Autowired
     public QueryService(IlpClientService ilpClientService) {
         this.ilpClientService = ilpClientService;
-        this.objectMapper = new ObjectMapper();
     }
 
     // Getting drones by cooling capability
@@ -60,14 +60,7 @@ public class QueryService {
     public List<String> queryByPath(String attribute, String value) {
         logger.debug("Querying drones by {}={}", attribute, value);
 
-        List<Drone> allDrones = ilpClientService.getDrones();
-        List<String> result = new ArrayList<>();
-
-        for (Drone drone : allDrones) {
-            if (matchesSingleAttribute(drone, attribute, "=", value)) {
-                result.add(drone.getId());
-            }
-        }
+        List<String> result = matching(DroneQuery.equalTo(attribute, value));
 
         logger.info("Found {} drones matching {}={}", result.size(), attribute, value);
         return result;
@@ -78,108 +71,35 @@ public class QueryService {
     public List<String> query(List<QueryAttribute> queryAttributes) {
         logger.debug("Querying drones with {} conditions", queryAttributes.size());
 
-        List<Drone> allDrones = ilpClientService.getDrones();
-        List<String> result = new ArrayList<>();
-
-        for (Drone drone : allDrones) {
-            boolean matchesAll = true;
-
-            for (QueryAttribute qa : queryAttributes) {
-                if (!matchesSingleAttribute(drone, qa.getAttribute(),
-                        qa.getOperator(), qa.getValue())) {
-                    matchesAll = false;
-                    break;
-                }
-            }
-
-            if (matchesAll) {
-                result.add(drone.getId());
-            }
-        }
+        List<String> result = matching(DroneQuery.compile(queryAttributes));
 
         logger.info("Found {} drones matching all conditions", result.size());
         return result;
     }
 
-    // Checking if a drone matches a single attribute condition
-
-    private boolean matchesSingleAttribute(Drone drone, String attribute,
-                                           String operator, String value) {
-        try {
-            JsonNode droneNode = objectMapper.valueToTree(drone);
-            JsonNode attrValue = getAttributeValue(droneNode, attribute);
-
-            if (attrValue == null || attrValue.isNull()) {
-                return false;
-            }
-
-            // Handle different types
-            if (attrValue.isNumber()) {
-                return compareNumeric(attrValue.asDouble(), operator,
-                        Double.parseDouble(value));
-            } else if (attrValue.isBoolean()) {
-                boolean actualValue = attrValue.asBoolean();
-                boolean expectedValue = Boolean.parseBoolean(value);
-
-                // Handles both "=" and "!=" for boolean values
-                return switch (operator) {
-                    case "=" -> actualValue == expectedValue;
-                    case "!=" -> actualValue != expectedValue;
-                    default -> {
-                        logger.warn("Unsupported boolean operator: {}", operator);
-                        yield false;
-                    }
-                };
-            } else {
-                String actualText = attrValue.asText();
-                return switch (operator) {
-                    case "=" -> actualText.equals(value);
-                    case "!=" -> !actualText.equals(value);
-                    default -> {
-                        logger.warn("Unsupported string operator: {}", operator);
-                        yield false;
-                    }
-                };
-            }
-
-        } catch (Exception e) {
-            logger.warn("Error matching attribute {}: {}", attribute, e.getMessage());
-            return false;
-        }
-    }
+    // IDs of the drones matching the compiled query
 
-    // Getting attribute value from JSON node
+    private List<String> matching(DroneQuery droneQuery) {
+        DroneColumns droneColumns = columnsOf(ilpClientService.getDrones());
+        BitSet selected = droneQuery.select(droneColumns);
 
-    private JsonNode getAttributeValue(JsonNode node, String attribute) {
-        // Checks capability first
-        if (node.has("capability")) {
-            JsonNode capabilityNode = node.get("capability");
-            if (capabilityNode.has(attribute)) {
-                return capabilityNode.get(attribute);
-            }
+        List<String> result = new ArrayList<>(selected.cardinality());
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+            result.add(droneColumns.id(i));
         }
+        return result;
+    }
 
-        if (node.has(attribute)) {
-            return node.get(attribute);
-        }
+    // Column store of the drones, rebuilt unless their exact values are unchanged
 
-        return null;
-    }
+    private DroneColumns columnsOf(List<Drone> drones) {
+        DroneColumns cached = columns;
+        if (cached != null && cached.inputs().equals(DroneColumns.inputs(drones))) {
+            return cached;
+        }
 
-    // Comparing numeric values based on operator
-
-    private boolean compareNumeric(double actual, String operator, double expected) {
-        return switch (operator) {
-            case "=" -> Math.abs(actual - expected) < 0.0001;
-            case "!=" -> Math.abs(actual - expected) >= 0.0001;
-            case "<" -> actual < expected;
-            case ">" -> actual > expected;
-            case "<=" -> actual <= expected;
-            case ">=" -> actual >= expected;
-            default -> {
-                logger.warn("Unknown operator: {}", operator);
-                yield false;
-            }
-        };
+        DroneColumns built = DroneColumns.of(drones);
+        columns = built;
+        return built;
     }
 }
@@ -0,0 +1,282 @@
+package uk.ac.ed.acp.cw2.service;
+
+import uk.ac.ed.acp.cw2.model.LngLat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Provides static utility methods for building multi-stop tours from one service point:
+ * Clarke–Wright savings construction merging out-and-back trips into shared tours
+ * 2-opt reordering of the stops inside each tour
+ * relocation of single stops between tours when it shortens the total distance
+ * Distances are straight-line estimates in degrees, the real flight paths are planned afterwards
+ * Both phases are anytime: when stopped reports true they return the feasible tours found so far
+ */
+public class RouteOptimiser {
+
+    // Upper bound on improvement passes so local search always terminates
+    private static final int MAX_IMPROVEMENT_PASSES = 50;
+
+    private static final double EPSILON = 1e-12;
+
+    private RouteOptimiser() {
+    }
+
+    /**
+     * Groups stops into tours starting and ending at the depot.
+     * distances comes from distanceMatrix and each tour is a list of stop indices in visiting order.
+     * feasible is asked about every candidate tour, stops whose single-stop tour is
+     * rejected are left out of the result.
+     */
+    public static List<List<Integer>> buildTours(double[][] distances,
+                                                 Predicate<List<Integer>> feasible) {
+        return buildTours(distances, feasible, () -> false);
+    }
+
+    // Same as buildTours but stops merging and improving as soon as stopped reports true
+    public static List<List<Integer>> buildTours(double[][] distances,
+                                                 Predicate<List<Integer>> feasible,
+                                                 BooleanSupplier stopped) {
+        int n = distances.length - 1;
+
+        List<List<Integer>> tours = buildSavingsTours(n, distances, feasible, stopped);
+        improveTours(tours, distances, feasible, stopped);
+
+        return tours;
+    }
+
+    // Estimated length of a tour in degrees including both depot legs
+    public static double tourLength(List<Integer> tour, double[][] distances) {
+        if (tour.isEmpty()) {
+            return 0.0;
+        }
+
+        double length = distances[0][tour.get(0) + 1];
+        for (int i = 0; i < tour.size() - 1; i++) {
+            length += distances[tour.get(i) + 1][tour.get(i + 1) + 1];
+        }
+        length += distances[tour.get(tour.size() - 1) + 1][0];
+
+        return length;
+    }
+
+    // Distance matrix where index 0 is the depot and index i + 1 is stop i
+    public static double[][] distanceMatrix(LngLat depot, List<LngLat> stops) {
+        int size = stops.size() + 1;
+        LngLat[] points = new LngLat[size];
+        points[0] = depot;
+        for (int i = 0; i < stops.size(); i++) {
+            points[i + 1] = stops.get(i);
+        }
+
+        double[][] distances = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                double distance = DroneNavigation.euclideanDistance(points[i], points[j]);
+                distances[i][j] = distance;
+                distances[j][i] = distance;
+            }
+        }
+
+        return distances;
+    }
+
+    // Savings construction: start from one tour per stop and merge tour ends by decreasing saving
+    private static List<List<Integer>> buildSavingsTours(int n, double[][] distances,
+                                                         Predicate<List<Integer>> feasible,
+                                                         BooleanSupplier stopped) {
+        List<List<Integer>> tourOf = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            List<Integer> tour = new ArrayList<>();
+            tour.add(i);
+            tourOf.add(feasible.test(tour) ? tour : null);
+        }
+
+        List<double[]> savings = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double saving = distances[0][i + 1] + distances[0][j + 1] - distances[i + 1][j + 1];
+                if (saving > EPSILON) {
+                    savings.add(new double[]{saving, i, j});
+                }
+            }
+        }
+        savings.sort((a, b) -> Double.compare(b[0], a[0]));
+
+        for (double[] saving : savings) {
+            // Every tour is feasible after each merge, so stopping here still gives a valid plan
+            if (stopped.getAsBoolean()) {
+                break;
+            }
+
+            int i = (int) saving[1];
+            int j = (int) saving[2];
+
+            List<Integer> tourI = tourOf.get(i);
+            List<Integer> tourJ = tourOf.get(j);
+            if (tourI == null || tourJ == null || tourI == tourJ) {
+                continue;
+            }
+
+            List<Integer> merged = mergeAtEnds(tourI, i, tourJ, j);
+            if (merged == null || !feasible.test(merged)) {
+                continue;
+            }
+
+            for (int stop : merged) {
+                tourOf.set(stop, merged);
+            }
+        }
+
+        List<List<Integer>> tours = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            List<Integer> tour = tourOf.get(i);
+            if (tour != null && tour.get(0) == i) {
+                tours.add(tour);
+            }
+        }
+
+        return tours;
+    }
+
+    // Joins two tours so that i and j become neighbours, only possible when both are tour ends
+    private static List<Integer> mergeAtEnds(List<Integer> tourI, int i, List<Integer> tourJ, int j) {
+        boolean iAtStart = tourI.get(0) == i;
+        boolean iAtEnd = tourI.get(tourI.size() - 1) == i;
+        boolean jAtStart = tourJ.get(0) == j;
+        boolean jAtEnd = tourJ.get(tourJ.size() - 1) == j;
+
+        List<Integer> merged = new ArrayList<>(tourI.size() + tourJ.size());
+
+        if (iAtEnd && jAtStart) {
+            merged.addAll(tourI);
+            merged.addAll(tourJ);
+        } else if (jAtEnd && iAtStart) {
+            merged.addAll(tourJ);
+            merged.addAll(tourI);
+        } else if (iAtEnd && jAtEnd) {
+            merged.addAll(tourI);
+            merged.addAll(tourJ.reversed());
+        } else if (iAtStart && jAtStart) {
+            merged.addAll(tourI.reversed());
+            merged.addAll(tourJ);
+        } else {
+            return null;
+        }
+
+        return merged;
+    }
+
+    // Local search alternating 2-opt and relocate until neither finds an improvement
+    private static void improveTours(List<List<Integer>> tours, double[][] distances,
+                                     Predicate<List<Integer>> feasible,
+                                     BooleanSupplier stopped) {
+        for (int pass = 0; pass < MAX_IMPROVEMENT_PASSES; pass++) {
+            boolean improved = false;
+
+            for (int t = 0; t < tours.size(); t++) {
+                if (stopped.getAsBoolean()) {
+                    return;
+                }
+
+                List<Integer> better = twoOpt(tours.get(t), distances, feasible);
+                if (better != null) {
+                    tours.set(t, better);
+                    improved = true;
+                }
+            }
+
+            if (relocate(tours, distances, feasible)) {
+                improved = true;
+            }
+
+            if (!improved) {
+                return;
+            }
+        }
+    }
+
+    // Reverses the segment giving the largest gain, null when no reversal helps
+    private static List<Integer> twoOpt(List<Integer> tour, double[][] distances,
+                                        Predicate<List<Integer>> feasible) {
+        if (tour.size() < 3) {
+            return null;
+        }
+
+        double currentLength = tourLength(tour, distances);
+        List<Integer> best = null;
+        double bestLength = currentLength - EPSILON;
+
+        for (int from = 0; from < tour.size() - 1; from++) {
+            for (int to = from + 1; to < tour.size(); to++) {
+                List<Integer> candidate = new ArrayList<>(tour);
+                Collections.reverse(candidate.subList(from, to + 1));
+
+                double length = tourLength(candidate, distances);
+                if (length < bestLength && feasible.test(candidate)) {
+                    best = candidate;
+                    bestLength = length;
+                }
+            }
+        }
+
+        return best;
+    }
+
+    // Moves one stop into the cheapest position of another tour, returns true if anything moved
+    private static boolean relocate(List<List<Integer>> tours, double[][] distances,
+                                    Predicate<List<Integer>> feasible) {
+        for (int source = 0; source < tours.size(); source++) {
+            List<Integer> sourceTour = tours.get(source);
+
+            for (int position = 0; position < sourceTour.size(); position++) {
+                int stop = sourceTour.get(position);
+
+                List<Integer> reduced = new ArrayList<>(sourceTour);
+                reduced.remove(position);
+                double removalGain = tourLength(sourceTour, distances) - tourLength(reduced, distances);
+
+                List<Integer> bestTarget = null;
+                int bestTargetIndex = -1;
+                double bestIncrease = removalGain - EPSILON;
+
+                for (int target = 0; target < tours.size(); target++) {
+                    if (target == source) {
+                        continue;
+                    }
+
+                    List<Integer> targetTour = tours.get(target);
+                    double targetLength = tourLength(targetTour, distances);
+
+                    for (int insertAt = 0; insertAt <= targetTour.size(); insertAt++) {
+                        List<Integer> candidate = new ArrayList<>(targetTour);
+                        candidate.add(insertAt, stop);
+
+                        double increase = tourLength(candidate, distances) - targetLength;
+                        if (increase < bestIncrease && feasible.test(candidate)) {
+                            bestTarget = candidate;
+                            bestTargetIndex = target;
+                            bestIncrease = increase;
+                        }
+                    }
+                }
+
+                if (bestTarget != null && (reduced.isEmpty() || feasible.test(reduced))) {
+                    tours.set(bestTargetIndex, bestTarget);
+                    if (reduced.isEmpty()) {
+                        tours.remove(source);
+                    } else {
+                        tours.set(source, reduced);
+                    }
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
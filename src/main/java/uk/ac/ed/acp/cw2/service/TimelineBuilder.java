@@ -0,0 +1,102 @@
+package uk.ac.ed.acp.cw2.service;
+
+import uk.ac.ed.acp.cw2.dto.AvailabilityTimeline;
+import uk.ac.ed.acp.cw2.model.*;
+
+import java.util.*;
+
+/**
+ * Builds the weekly AvailabilityTimeline with a sweep line per service point:
+ * every merged availability window [start, end) of a stationed drone adds +1 at the first
+ * slot starting inside it and -1 at the first slot starting at or after its end,
+ * a prefix sum over the slots then gives the counts
+ * windows of a drone listed twice at one service point are merged first so it is counted once
+ */
+public final class TimelineBuilder {
+
+    private TimelineBuilder() {}
+
+    public static AvailabilityTimeline build(FleetSnapshot fleet,
+                                             List<DroneForServicePoint> dronesForServicePoints,
+                                             List<ServicePoint> servicePoints,
+                                             int slotMinutes) {
+        int slotSeconds = slotMinutes * 60;
+        int slots = FleetSnapshot.SECONDS_PER_WEEK / slotSeconds;
+
+        Map<Integer, String> names = new HashMap<>();
+        for (ServicePoint servicePoint : servicePoints) {
+            names.putIfAbsent(servicePoint.getId(), servicePoint.getName());
+        }
+
+        // Service point id -> drone ordinal -> its windows there, in listing order
+        Map<Integer, Map<Integer, List<int[]>>> stationed = new LinkedHashMap<>();
+        for (DroneForServicePoint dfsp : dronesForServicePoints) {
+            if (dfsp.getServicePointId() == null || dfsp.getDrones() == null) {
+                continue;
+            }
+            Map<Integer, List<int[]>> drones = stationed.computeIfAbsent(
+                    dfsp.getServicePointId(), id -> new LinkedHashMap<>());
+            for (DroneForServicePoint.DroneAvailability da : dfsp.getDrones()) {
+                int ordinal = fleet.ordinalOf(da.getId());
+                if (ordinal < 0 || da.getAvailability() == null) {
+                    continue;
+                }
+                List<int[]> windows = drones.computeIfAbsent(ordinal, o -> new ArrayList<>());
+                for (DayAvailability availability : da.getAvailability()) {
+                    int[] interval = FleetSnapshot.decode(availability);
+                    if (interval != null) {
+                        windows.add(interval);
+                    }
+                }
+            }
+        }
+
+        List<AvailabilityTimeline.ServicePointSlots> result = new ArrayList<>(stationed.size());
+        for (Map.Entry<Integer, Map<Integer, List<int[]>>> entry : stationed.entrySet()) {
+            // One extra slot so a window ending at the end of the week has somewhere to put its -1
+            int[] available = new int[slots + 1];
+            int[] cooling = new int[slots + 1];
+            int[] heating = new int[slots + 1];
+
+            for (Map.Entry<Integer, List<int[]>> drone : entry.getValue().entrySet()) {
+                DroneCapability capability = fleet.drone(drone.getKey()).getCapability();
+                boolean cools = capability != null && Boolean.TRUE.equals(capability.getCooling());
+                boolean heats = capability != null && Boolean.TRUE.equals(capability.getHeating());
+
+                int[] windows = FleetSnapshot.merge(drone.getValue());
+                for (int w = 0; w < windows.length; w += 2) {
+                    int first = Math.ceilDiv(windows[w], slotSeconds);
+                    int end = Math.ceilDiv(windows[w + 1], slotSeconds);
+                    if (first >= end) {
+                        continue;
+                    }
+                    available[first]++;
+                    available[end]--;
+                    if (cools) {
+                        cooling[first]++;
+                        cooling[end]--;
+                    }
+                    if (heats) {
+                        heating[first]++;
+                        heating[end]--;
+                    }
+                }
+            }
+
+            result.add(new AvailabilityTimeline.ServicePointSlots(entry.getKey(), names.get(entry.getKey()),
+                    prefixSum(available, slots), prefixSum(cooling, slots), prefixSum(heating, slots)));
+        }
+
+        return new AvailabilityTimeline(Long.toHexString(fleet.version()), slotMinutes, result);
+    }
+
+    private static int[] prefixSum(int[] deltas, int slots) {
+        int[] counts = new int[slots];
+        int running = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            running += deltas[slot];
+            counts[slot] = running;
+        }
+        return counts;
+    }
+}
@@ -2,6 +2,7 @@ package uk.ac.ed.acp.cw2;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcProperties;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.ApplicationContext;
 import uk.ac.ed.acp.cw2.controller.CoreRestController;
@@ -9,6 +10,9 @@ import uk.ac.ed.acp.cw2.controller.DroneDeliveryController;
 import uk.ac.ed.acp.cw2.controller.QueryController;
 import uk.ac.ed.acp.cw2.service.*;
 
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 /**
@@ -19,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
  * - All controllers are properly initialized
  * - All services are properly initialized
  * - Bean wiring is correct
+ * - Streaming responses get the planning async timeout, not the container default
  */
 @SpringBootTest
 class ApplicationTests {
@@ -69,4 +74,12 @@ class ApplicationTests {
         assertNotNull(applicationContext.getBean("ilpEndpoint"),
                 "ILP endpoint URL should be configured");
     }
+
+    @Test
+    void asyncRequestTimeoutIsConfigured() {
+        // Verifies if streamed planning responses outlive the 30 s container default
+        assertEquals(Duration.ofMinutes(10),
+                applicationContext.getBean(WebMvcProperties.class).getAsync().getRequestTimeout(),
+                "Async request timeout should be set for planning");
+    }
 }
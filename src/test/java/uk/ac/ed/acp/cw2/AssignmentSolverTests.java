@@ -0,0 +1,125 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.service.AssignmentSolver;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for AssignmentSolver utility class.
+ * Coverage:
+ * Optimal result where row-by-row greedy choice is worse
+ * Infeasible pairs are never chosen
+ * More rows than columns leaves rows unassigned
+ * Agreement with brute force on small random matrices
+ */
+class AssignmentSolverTests {
+
+    private static final double INF = AssignmentSolver.INFEASIBLE;
+
+    @Test
+    void testSolve_BeatsGreedy() {
+        // Greedy gives row 0 the cheap column 0 and row 1 pays 10
+        double[][] costs = {
+                {1.0, 2.0},
+                {1.0, 10.0}
+        };
+
+        int[] assignment = AssignmentSolver.solve(costs);
+
+        assertArrayEquals(new int[]{1, 0}, assignment);
+    }
+
+    @Test
+    void testSolve_InfeasiblePairNeverChosen() {
+        double[][] costs = {
+                {INF, 5.0, INF},
+                {1.0, INF, INF}
+        };
+
+        int[] assignment = AssignmentSolver.solve(costs);
+
+        assertArrayEquals(new int[]{1, 0}, assignment);
+    }
+
+    @Test
+    void testSolve_RowWithoutFeasibleColumn_Unassigned() {
+        double[][] costs = {
+                {INF, INF},
+                {3.0, 4.0}
+        };
+
+        int[] assignment = AssignmentSolver.solve(costs);
+
+        assertEquals(-1, assignment[0]);
+        assertEquals(0, assignment[1]);
+    }
+
+    @Test
+    void testSolve_MoreRowsThanColumns() {
+        double[][] costs = {
+                {4.0},
+                {1.0},
+                {3.0}
+        };
+
+        int[] assignment = AssignmentSolver.solve(costs);
+
+        assertArrayEquals(new int[]{-1, 0, -1}, assignment);
+    }
+
+    @Test
+    void testSolve_EmptyMatrix() {
+        assertEquals(0, AssignmentSolver.solve(new double[0][0]).length);
+    }
+
+    @Test
+    void testSolve_MatchesBruteForce() {
+        Random random = new Random(42);
+
+        for (int trial = 0; trial < 50; trial++) {
+            int size = 2 + random.nextInt(4);
+            double[][] costs = new double[size][size];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    costs[i][j] = random.nextInt(5) == 0 ? INF : 1 + random.nextDouble() * 20;
+                }
+            }
+
+            double best = bruteForce(costs, 0, new boolean[size]);
+            int[] assignment = AssignmentSolver.solve(costs);
+
+            double total = 0.0;
+            int unassigned = 0;
+            for (int i = 0; i < size; i++) {
+                if (assignment[i] < 0) {
+                    unassigned++;
+                } else {
+                    total += costs[i][assignment[i]];
+                }
+            }
+            total += unassigned * INF;
+
+            assertEquals(best, total, 1e-6, "Trial " + trial);
+        }
+    }
+
+    // Cheapest perfect matching, infeasible pairs count as INF
+    private double bruteForce(double[][] costs, int row, boolean[] used) {
+        if (row == costs.length) {
+            return 0.0;
+        }
+
+        double best = Double.MAX_VALUE;
+        for (int j = 0; j < costs.length; j++) {
+            if (!used[j]) {
+                used[j] = true;
+                best = Math.min(best, costs[row][j] + bruteForce(costs, row + 1, used));
+                used[j] = false;
+            }
+        }
+        return best;
+    }
+}
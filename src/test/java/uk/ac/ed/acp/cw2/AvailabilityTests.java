@@ -9,16 +9,20 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.ac.ed.acp.cw2.dto.AvailabilityTimeline;
 import uk.ac.ed.acp.cw2.dto.DeliveryRequirements;
 import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
 import uk.ac.ed.acp.cw2.model.*;
 import uk.ac.ed.acp.cw2.service.AvailabilityService;
+import uk.ac.ed.acp.cw2.service.EligibilityMatrix;
+import uk.ac.ed.acp.cw2.service.FleetSnapshot;
 import uk.ac.ed.acp.cw2.service.IlpClientService;
 
 import java.util.*;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -30,6 +34,12 @@ import static org.mockito.Mockito.when;
  * Estimated maxCost checking
  * Date/time availability checking
  * Time check: delivery BEFORE end of availability
+ * Batch queries answer every group like a single query
+ * Eligibility matrix agrees with one query per dispatch
+ * Eligibility matrix over already fetched ILP data does not fetch it again
+ * Availability timeline counts drones per service point and slot, cached per version
+ * Fleet snapshot reuse while the ILP data is unchanged
+ * Fleet snapshot rebuilt for changed windows even when their hashes collide
  */
 @ExtendWith(MockitoExtension.class)
 class AvailabilityTests {
@@ -424,6 +434,137 @@ class AvailabilityTests {
         );
     }
 
+    @Test
+    void testQueryAvailableDronesBatch_MatchesSingleQueries() {
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+
+        List<MedDispatchRec> coolingAndHeating = Arrays.asList(
+                createDispatch(1, "2025-01-06", "10:00", 5.0, true, false),
+                createDispatch(2, "2025-01-06", "11:00", 5.0, false, true));
+        List<MedDispatchRec> large = List.of(createDispatch(3, "2025-01-06", "10:00", 9.0, false, false));
+        List<MedDispatchRec> tuesday = List.of(createDispatch(4, "2025-01-07", "10:00", 1.0, false, false));
+
+        List<List<String>> results = availabilityService.queryAvailableDronesBatch(
+                Arrays.asList(coolingAndHeating, large, List.of(), null, tuesday));
+
+        assertEquals(5, results.size());
+        assertEquals(List.of("DRONE-001"), results.get(0));
+        assertEquals(availabilityService.queryAvailableDrones(large), results.get(1));
+        assertEquals(List.of("DRONE-001", "DRONE-003"), results.get(1));
+        assertTrue(results.get(2).isEmpty());
+        assertTrue(results.get(3).isEmpty());
+        assertTrue(results.get(4).isEmpty());
+    }
+
+    @Test
+    void testEligibilityMatrix_MatchesPerDispatchQueries() {
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+
+        List<MedDispatchRec> dispatches = Arrays.asList(
+                createDispatch(1, "2025-01-06", "10:00", 5.0, true, false),
+                createDispatch(2, "2025-01-06", "11:00", 9.0, false, true),
+                createDispatch(3, "2025-01-07", "10:00", 1.0, false, false));
+
+        EligibilityMatrix matrix = availabilityService.eligibilityMatrix(dispatches);
+
+        assertEquals(3, matrix.size());
+        for (MedDispatchRec dispatch : dispatches) {
+            assertEquals(availabilityService.queryAvailableDrones(List.of(dispatch)),
+                    matrix.eligibleDrones(dispatch));
+        }
+        assertEquals(List.of("DRONE-001", "DRONE-003"), matrix.eligibleDrones(dispatches.get(1)));
+        assertTrue(matrix.isEligible(dispatches.get(0), "DRONE-002"));
+        assertFalse(matrix.isEligible(dispatches.get(0), "DRONE-003"));
+        assertTrue(matrix.eligibleDrones(createDispatch(4, "2025-01-06", "10:00", 1.0, false, false)).isEmpty());
+    }
+
+    @Test
+    void testEligibilityMatrix_FetchedData_NoIlpCalls() {
+        List<MedDispatchRec> dispatches = List.of(createDispatch(1, "2025-01-06", "11:00", 9.0, false, true));
+
+        EligibilityMatrix matrix = availabilityService.eligibilityMatrix(dispatches,
+                testDrones, testDronesForServicePoints, testServicePoints);
+
+        assertEquals(List.of("DRONE-001", "DRONE-003"), matrix.eligibleDrones(dispatches.get(0)));
+        verifyNoInteractions(ilpClientService);
+    }
+
+    @Test
+    void testAvailabilityTimeline_CountsPerSlot() {
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+
+        AvailabilityTimeline timeline = availabilityService.availabilityTimeline(60);
+
+        assertEquals(1, timeline.getServicePoints().size());
+        AvailabilityTimeline.ServicePointSlots appleton = timeline.getServicePoints().get(0);
+        assertEquals("Appleton Tower", appleton.getName());
+        assertEquals(7 * 24, appleton.getAvailable().length);
+        assertEquals(0, appleton.getAvailable()[8]);
+        assertEquals(4, appleton.getAvailable()[9]);
+        assertEquals(4, appleton.getAvailable()[16]);
+        assertEquals(0, appleton.getAvailable()[17]);
+        assertEquals(0, appleton.getAvailable()[24 + 9]);
+        assertEquals(2, appleton.getCooling()[12]);
+        assertEquals(2, appleton.getHeating()[12]);
+        assertEquals(4 * 8, Arrays.stream(appleton.getAvailable()).sum());
+
+        assertSame(timeline, availabilityService.availabilityTimeline(60));
+        AvailabilityTimeline halfDay = availabilityService.availabilityTimeline(720);
+        int[] mondayNoon = new int[14];
+        mondayNoon[1] = 4;
+        assertArrayEquals(mondayNoon, halfDay.getServicePoints().get(0).getAvailable());
+    }
+
+    @Test
+    void testAvailabilityTimeline_InvalidSlot_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> availabilityService.availabilityTimeline(7));
+        assertThrows(IllegalArgumentException.class, () -> availabilityService.availabilityTimeline(50));
+    }
+
+    @Test
+    void testCurrentSnapshot_ReusedWhileDataUnchanged() {
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+
+        FleetSnapshot first = availabilityService.currentSnapshot();
+        assertSame(first, availabilityService.currentSnapshot());
+
+        testDronesForServicePoints.get(0).getDrones().get(0).getAvailability().get(0).setUntil("18:00:00");
+        FleetSnapshot changed = availabilityService.currentSnapshot();
+
+        assertNotSame(first, changed);
+        assertNotEquals(first.version(), changed.version());
+    }
+
+    @Test
+    void testCurrentSnapshot_CollidingWindows_Rebuilt() {
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        List<MedDispatchRec> mondayNine = List.of(createDispatch(1, "2025-01-06", "09:00", 1.0, false, false));
+
+        // Same Objects.hash(dayOfWeek, from, until) as 09:00:01-17:00:00
+        DayAvailability monday = testDronesForServicePoints.get(0).getDrones().get(0).getAvailability().get(0);
+        monday.setUntil("17:00:10");
+        FleetSnapshot first = availabilityService.currentSnapshot();
+        assertEquals(4, availabilityService.queryAvailableDrones(mondayNine).size());
+
+        monday.setFrom("09:00:01");
+        monday.setUntil("17:00:00");
+        FleetSnapshot changed = availabilityService.currentSnapshot();
+
+        assertNotSame(first, changed);
+        assertNotEquals(first.version(), changed.version());
+        assertTrue(availabilityService.queryAvailableDrones(mondayNine).isEmpty());
+    }
+
     // Helper method
     private MedDispatchRec createDispatch(int id, String date, String time,
                                           double capacity, boolean cooling, boolean heating) {
@@ -1,12 +1,15 @@
 package uk.ac.ed.acp.cw2;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import uk.ac.ed.acp.cw2.controller.CoreRestController;
 import uk.ac.ed.acp.cw2.controller.DroneDeliveryController;
 import uk.ac.ed.acp.cw2.controller.QueryController;
@@ -14,12 +17,22 @@ import uk.ac.ed.acp.cw2.dto.*;
 import uk.ac.ed.acp.cw2.model.*;
 import uk.ac.ed.acp.cw2.service.AvailabilityService;
 import uk.ac.ed.acp.cw2.service.PathPlanningService;
+import uk.ac.ed.acp.cw2.service.PlanSessionService;
+import uk.ac.ed.acp.cw2.service.PlanningDeadline;
+import uk.ac.ed.acp.cw2.service.PlanningJobService;
+import uk.ac.ed.acp.cw2.service.PlanningMode;
 import uk.ac.ed.acp.cw2.service.QueryService;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -41,6 +54,12 @@ class ControllerTests {
     @Autowired
     private ObjectMapper objectMapper;
 
+    // Configured like the server side CBOR converter (Jackson2ObjectMapperBuilder.cbor())
+    private final CBORMapper cborMapper = CBORMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
     @MockBean
     private QueryService queryService;
 
@@ -50,6 +69,12 @@ class ControllerTests {
     @MockBean
     private PathPlanningService pathPlanningService;
 
+    @MockBean
+    private PlanSessionService planSessionService;
+
+    @MockBean
+    private PlanningJobService planningJobService;
+
     // CoreRestController tests
 
     @Test
@@ -232,6 +257,31 @@ class ControllerTests {
                 .andExpect(jsonPath("$[1]").value("DRONE-002"));
     }
 
+    @Test
+    void testQueryAvailableDrones_Cbor_RoundTrip() throws Exception {
+        MedDispatchRec dispatch = new MedDispatchRec();
+        dispatch.setId(1);
+        dispatch.setDate("2025-01-06");
+        dispatch.setTime("10:00");
+
+        DeliveryRequirements req = new DeliveryRequirements();
+        req.setCapacity(5.0);
+        dispatch.setRequirements(req);
+
+        when(availabilityService.queryAvailableDrones(anyList()))
+                .thenReturn(Arrays.asList("DRONE-001", "DRONE-002"));
+
+        byte[] body = mockMvc.perform(post("/api/v1/queryAvailableDrones")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(Collections.singletonList(dispatch))))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(List.of("DRONE-001", "DRONE-002"), cborMapper.readValue(body, List.class));
+    }
+
     @Test
     void testQueryAvailableDrones_EmptyInput_ReturnsEmpty() throws Exception {
         mockMvc.perform(post("/api/v1/queryAvailableDrones")
@@ -241,6 +291,52 @@ class ControllerTests {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    void testQueryAvailableDronesBatch_OneListPerGroup() throws Exception {
+        MedDispatchRec dispatch = new MedDispatchRec();
+        dispatch.setId(1);
+        dispatch.setDate("2025-01-06");
+        dispatch.setTime("10:00");
+
+        when(availabilityService.queryAvailableDronesBatch(anyList()))
+                .thenReturn(List.of(List.of("DRONE-001"), List.of()));
+
+        mockMvc.perform(post("/api/v1/queryAvailableDrones/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(List.of(dispatch), List.of(dispatch)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0][0]").value("DRONE-001"))
+                .andExpect(jsonPath("$[1]").isEmpty());
+    }
+
+    @Test
+    void testAvailabilityTimeline_ETagAndNotModified() throws Exception {
+        AvailabilityTimeline timeline = new AvailabilityTimeline("1a2b", 720, List.of(
+                new AvailabilityTimeline.ServicePointSlots(1, "Appleton Tower",
+                        new int[]{0, 4}, new int[]{0, 2}, new int[]{0, 1})));
+        when(availabilityService.availabilityTimeline(720)).thenReturn(timeline);
+
+        mockMvc.perform(get("/api/v1/availabilityTimeline").param("slotMinutes", "720"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1a2b-720\""))
+                .andExpect(jsonPath("$.slotMinutes").value(720))
+                .andExpect(jsonPath("$.servicePoints[0].available[1]").value(4))
+                .andExpect(jsonPath("$.servicePoints[0].cooling[1]").value(2));
+
+        mockMvc.perform(get("/api/v1/availabilityTimeline").param("slotMinutes", "720")
+                        .header("If-None-Match", "\"1a2b-720\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testAvailabilityTimeline_InvalidSlot_Returns400() throws Exception {
+        when(availabilityService.availabilityTimeline(7)).thenThrow(new IllegalArgumentException("slotMinutes"));
+
+        mockMvc.perform(get("/api/v1/availabilityTimeline").param("slotMinutes", "7"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testCalcDeliveryPath_ReturnsResponseWithStringDroneId() throws Exception {
         MedDispatchRec dispatch = new MedDispatchRec();
@@ -263,7 +359,7 @@ class ControllerTests {
         mockResponse.setTotalMoves(100);
         mockResponse.setDronePaths(Collections.singletonList(dronePath));
 
-        when(pathPlanningService.calcDeliveryPath(anyList()))
+        when(pathPlanningService.calcDeliveryPath(anyList(), any(PlanningMode.class), any(PlanningDeadline.class)))
                 .thenReturn(mockResponse);
 
         mockMvc.perform(post("/api/v1/calcDeliveryPath")
@@ -275,6 +371,272 @@ class ControllerTests {
                 .andExpect(jsonPath("$.dronePaths[0].droneId").value("DRONE-001"));
     }
 
+    @Test
+    void testCalcDeliveryPath_BatchedMode_PassedToService() throws Exception {
+        DeliveryPathResponse mockResponse = new DeliveryPathResponse(30.0, 80, new ArrayList<>());
+
+        when(pathPlanningService.calcDeliveryPath(anyList(), eq(PlanningMode.BATCHED), any(PlanningDeadline.class)))
+                .thenReturn(mockResponse);
+
+        mockMvc.perform(post("/api/v1/calcDeliveryPath")
+                        .param("mode", "batched")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalMoves").value(80));
+    }
+
+    @Test
+    void testCalcDeliveryPath_UnknownMode_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/calcDeliveryPath")
+                        .param("mode", "teleport")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCalcDeliveryPath_DeadlineReached_FlaggedPartial() throws Exception {
+        DeliveryPathResponse mockResponse = new DeliveryPathResponse(10.0, 40, new ArrayList<>());
+        mockResponse.setPartial(true);
+
+        when(pathPlanningService.calcDeliveryPath(anyList(), any(PlanningMode.class), any(PlanningDeadline.class)))
+                .thenReturn(mockResponse);
+
+        mockMvc.perform(post("/api/v1/calcDeliveryPath")
+                        .header("X-Planning-Deadline-Ms", "250")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.partial").value(true));
+    }
+
+    @Test
+    void testCalcDeliveryPath_CompletePlan_OmitsPartial() throws Exception {
+        DeliveryPathResponse mockResponse = new DeliveryPathResponse(10.0, 40, new ArrayList<>());
+
+        when(pathPlanningService.calcDeliveryPath(anyList(), any(PlanningMode.class), any(PlanningDeadline.class)))
+                .thenReturn(mockResponse);
+
+        mockMvc.perform(post("/api/v1/calcDeliveryPath")
+                        .param("deadlineMs", "250")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.partial").doesNotExist());
+    }
+
+    @Test
+    void testCalcDeliveryPath_NonPositiveDeadline_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/calcDeliveryPath")
+                        .param("deadlineMs", "0")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCalcDeliveryPath_RleFormat_ReplacesFlightPath() throws Exception {
+        List<LngLat> flightPath = List.of(new LngLat(-3.186874, 55.944494), new LngLat(-3.186874, 55.944494));
+        DronePath dronePath = new DronePath("DRONE-001", List.of(new Delivery(1, flightPath)));
+        DeliveryPathResponse mockResponse = new DeliveryPathResponse(10.0, 1, List.of(dronePath));
+
+        when(pathPlanningService.calcDeliveryPath(anyList(), any(PlanningMode.class), any(PlanningDeadline.class)))
+                .thenReturn(mockResponse);
+
+        mockMvc.perform(post("/api/v1/calcDeliveryPath")
+                        .accept("application/vnd.ilp.rle+json")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/vnd.ilp.rle+json"))
+                .andExpect(jsonPath("$.totalMoves").value(1))
+                .andExpect(jsonPath("$.dronePaths[0].deliveries[0].flightPath").doesNotExist())
+                .andExpect(jsonPath("$.dronePaths[0].deliveries[0].encodedPath.start[0]").value(-3.186874))
+                .andExpect(jsonPath("$.dronePaths[0].deliveries[0].encodedPath.runs[0][0]").value(16));
+
+        mockMvc.perform(post("/api/v1/calcDeliveryPath")
+                        .param("format", "rle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dronePaths[0].deliveries[0].encodedPath.runs[0][1]").value(1));
+    }
+
+    @Test
+    void testCalcDeliveryPath_Cbor_ReturnsBinaryResponse() throws Exception {
+        List<LngLat> flightPath = List.of(new LngLat(-3.186874, 55.944494), new LngLat(-3.186874, 55.944644));
+        DronePath dronePath = new DronePath("DRONE-001", List.of(new Delivery(1, flightPath)));
+
+        when(pathPlanningService.calcDeliveryPath(anyList(), any(PlanningMode.class), any(PlanningDeadline.class)))
+                .thenReturn(new DeliveryPathResponse(10.0, 1, List.of(dronePath)));
+
+        byte[] body = mockMvc.perform(post("/api/v1/calcDeliveryPath")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(List.of())))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        DeliveryPathResponse response = cborMapper.readValue(body, DeliveryPathResponse.class);
+        assertEquals(1, response.getTotalMoves());
+        assertEquals(55.944644, response.getDronePaths().get(0).getDeliveries().get(0)
+                .getFlightPath().get(1).getLat());
+    }
+
+    @Test
+    void testCalcDeliveryPath_UnknownFormat_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/calcDeliveryPath")
+                        .param("format", "xml")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCalcDeliveryPathStream_WritesNdjsonLines() throws Exception {
+        when(pathPlanningService.streamDeliveryPath(anyList(), any(PlanningMode.class),
+                any(PlanningDeadline.class), any())).thenAnswer(invocation -> {
+                    Consumer<DronePath> sink = invocation.getArgument(3);
+                    sink.accept(new DronePath("DRONE-001", new ArrayList<>()));
+                    sink.accept(new DronePath("DRONE-002", new ArrayList<>()));
+                    return new DeliveryPathResponse(42.5, 120, new ArrayList<>());
+                });
+
+        MvcResult result = mockMvc.perform(post("/api/v1/calcDeliveryPath/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("DRONE-001", objectMapper.readTree(lines[0]).get("droneId").asText());
+        assertEquals("DRONE-002", objectMapper.readTree(lines[1]).get("droneId").asText());
+        assertEquals(120, objectMapper.readTree(lines[2]).get("totalMoves").asInt());
+        assertFalse(objectMapper.readTree(lines[2]).has("partial"));
+    }
+
+    @Test
+    void testCalcDeliveryPathStream_UnknownMode_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/calcDeliveryPath/stream")
+                        .param("mode", "teleport")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // PlanSessionController tests
+
+    @Test
+    void testAddDispatchToPlan_ReturnsDelta() throws Exception {
+        PlanDelta delta = new PlanDelta("plan-1", new ArrayList<>(), new ArrayList<>(),
+                Collections.singletonList(7), 0.0, 0);
+
+        when(planSessionService.addDispatch(eq("plan-1"), any(MedDispatchRec.class)))
+                .thenReturn(delta);
+
+        mockMvc.perform(post("/api/v1/plans/plan-1/dispatches")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": 7, \"delivery\": {\"lng\": -3.187, \"lat\": 55.943}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.planId").value("plan-1"))
+                .andExpect(jsonPath("$.unplanned[0]").value(7));
+    }
+
+    @Test
+    void testPlanSession_UnknownPlan_ReturnsNotFound() throws Exception {
+        when(planSessionService.getPlan("missing")).thenReturn(null);
+        when(planSessionService.removeDispatch("missing", 3)).thenReturn(null);
+
+        mockMvc.perform(get("/api/v1/plans/missing"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/v1/plans/missing/dispatches/3"))
+                .andExpect(status().isNotFound());
+    }
+
+    // PlanningJobController tests
+
+    @Test
+    void testSubmitJob_ReturnsAccepted() throws Exception {
+        when(planningJobService.submit(anyList(), eq(PlanningMode.OPTIMAL)))
+                .thenReturn(new PlanningJobStatus("job-1", "QUEUED", 0, 0, null));
+
+        mockMvc.perform(post("/api/v1/jobs")
+                        .param("mode", "optimal")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andExpect(jsonPath("$.error").doesNotExist());
+    }
+
+    @Test
+    void testSubmitJob_QueueFull_ReturnsServiceUnavailable() throws Exception {
+        when(planningJobService.submit(anyList(), any(PlanningMode.class)))
+                .thenThrow(new RejectedExecutionException("full"));
+
+        mockMvc.perform(post("/api/v1/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void testJobResult_StillRunning_ReturnsConflict() throws Exception {
+        when(planningJobService.getResult("job-1")).thenReturn(null);
+        when(planningJobService.getStatus("job-1"))
+                .thenReturn(new PlanningJobStatus("job-1", "RUNNING", 1, 2, null));
+
+        mockMvc.perform(get("/api/v1/jobs/job-1/result"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testJobResult_Failed_ReturnsError() throws Exception {
+        when(planningJobService.getResult("job-1")).thenReturn(null);
+        when(planningJobService.getStatus("job-1"))
+                .thenReturn(new PlanningJobStatus("job-1", "FAILED", 0, 2, "ILP down"));
+
+        mockMvc.perform(get("/api/v1/jobs/job-1/result"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message").value("ILP down"));
+    }
+
+    @Test
+    void testJobStatus_LongPoll_AnsweredAsynchronously() throws Exception {
+        CompletableFuture<PlanningJobStatus> finished = new CompletableFuture<>();
+        when(planningJobService.getStatus("job-1", 5000L)).thenReturn(finished);
+
+        MvcResult result = mockMvc.perform(get("/api/v1/jobs/job-1").param("waitMs", "5000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        finished.complete(new PlanningJobStatus("job-1", "DONE", 2, 2, null));
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DONE"));
+    }
+
+    @Test
+    void testJobStatus_UnknownJob_ReturnsNotFound() throws Exception {
+        when(planningJobService.getStatus("missing", 0L)).thenReturn(null);
+
+        MvcResult result = mockMvc.perform(get("/api/v1/jobs/missing"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testCalcDeliveryPathAsGeoJson_ReturnsGeoJson() throws Exception {
         MedDispatchRec dispatch = new MedDispatchRec();
@@ -287,16 +649,26 @@ class ControllerTests {
         dispatch.setRequirements(req);
         dispatch.setDelivery(new LngLat(-3.187, 55.943));
 
-        String mockGeoJson = "{\"type\":\"LineString\",\"coordinates\":[[-3.186,55.944]]}";
+        List<LngLat> flightPath = List.of(new LngLat(-3.186, 55.944), new LngLat(-3.187, 55.943));
+        DronePath dronePath = new DronePath("DRONE-001", List.of(new Delivery(1, flightPath)));
 
-        when(pathPlanningService.calcDeliveryPathAsGeoJson(anyList()))
-                .thenReturn(mockGeoJson);
+        when(pathPlanningService.calcDeliveryPath(anyList()))
+                .thenReturn(new DeliveryPathResponse(10.0, 1, List.of(dronePath)));
 
-        mockMvc.perform(post("/api/v1/calcDeliveryPathAsGeoJson")
+        MvcResult result = mockMvc.perform(post("/api/v1/calcDeliveryPathAsGeoJson")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(Collections.singletonList(dispatch))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String expected = "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\","
+                + "\"properties\":{\"droneId\":\"DRONE-001\",\"deliveryIds\":[1]},"
+                + "\"geometry\":{\"type\":\"LineString\","
+                + "\"coordinates\":[[-3.186000,55.944000],[-3.187000,55.943000]]}}]}";
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
-                .andExpect(content().json(mockGeoJson));
+                .andExpect(content().string(expected));
     }
 
     @Test
@@ -320,7 +692,7 @@ class ControllerTests {
         mockResponse.setTotalMoves(50);
         mockResponse.setDronePaths(new ArrayList<>());
 
-        when(pathPlanningService.calcDeliveryPath(anyList()))
+        when(pathPlanningService.calcDeliveryPath(anyList(), any(PlanningMode.class), any(PlanningDeadline.class)))
                 .thenReturn(mockResponse);
 
         mockMvc.perform(post("/api/v1/calcDeliveryPath")
@@ -266,6 +266,54 @@ class DroneNavigationTests {
         assertEquals(100, next.getAlt(), "Altitude should be preserved");
     }
 
+    // minimumMoves tests
+
+    @Test
+    void testMinimumMoves_AlreadyClose_ReturnsZero() {
+        LngLat point = new LngLat(-3.186, 55.944);
+
+        assertEquals(0, DroneNavigation.minimumMoves(point, new LngLat(-3.18605, 55.944)));
+    }
+
+    @Test
+    void testMinimumMoves_MatchesStraightFlight() {
+        LngLat position = new LngLat(0.0, 0.0);
+        LngLat goal = new LngLat(0.0030, 0.0);
+
+        int moves = 0;
+        while (!DroneNavigation.isClose(position, goal)) {
+            position = DroneNavigation.nextPosition(position, 0.0);
+            moves++;
+        }
+
+        assertEquals(moves, DroneNavigation.minimumMoves(new LngLat(0.0, 0.0), goal),
+                "Straight flight along a compass direction meets the lower bound");
+    }
+
+    @Test
+    void testMinimumMoves_NeverAboveDiagonalFlight() {
+        LngLat position = new LngLat(0.0, 0.0);
+        LngLat goal = new LngLat(0.0021, 0.0013);
+
+        int moves = 0;
+        while (!DroneNavigation.isClose(position, goal) && moves < 100) {
+            double bestAngle = 0;
+            double best = Double.MAX_VALUE;
+            for (double angle : DroneNavigation.ALLOWED_ANGLES) {
+                double distance = DroneNavigation.euclideanDistance(
+                        DroneNavigation.nextPosition(position, angle), goal);
+                if (distance < best) {
+                    best = distance;
+                    bestAngle = angle;
+                }
+            }
+            position = DroneNavigation.nextPosition(position, bestAngle);
+            moves++;
+        }
+
+        assertTrue(DroneNavigation.minimumMoves(new LngLat(0.0, 0.0), goal) <= moves);
+    }
+
     // Constants tests
 
     @Test
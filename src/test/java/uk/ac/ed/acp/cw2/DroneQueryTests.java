@@ -12,6 +12,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import uk.ac.ed.acp.cw2.dto.QueryAttribute;
 import uk.ac.ed.acp.cw2.model.Drone;
 import uk.ac.ed.acp.cw2.model.DroneCapability;
+import uk.ac.ed.acp.cw2.service.DroneAttribute;
+import uk.ac.ed.acp.cw2.service.DroneColumns;
 import uk.ac.ed.acp.cw2.service.IlpClientService;
 import uk.ac.ed.acp.cw2.service.QueryService;
 
@@ -30,6 +32,8 @@ import static org.mockito.Mockito.when;
  * Cooling/heating queries
  * Single and multiple attribute queries
  * Numeric operators (=, !=, <, >, <=, >=)
+ * Compiled conditions: unknown attributes, bad values, integers and drones without capability
+ * DroneColumns: presence, NaN for missing values, dictionary codes, rebuilt when the fleet changes
  */
 @ExtendWith(MockitoExtension.class)
 class DroneQueryTests {
@@ -443,4 +447,75 @@ class DroneQueryTests {
         assertTrue(result.contains("DRONE-003"));
         assertTrue(result.contains("DRONE-004"));
     }
+
+    // Compiled query edge cases
+
+    @Test
+    void testQuery_UnknownAttributeOrNonNumericValue_ReturnsEmpty() {
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+
+        assertTrue(queryService.query(List.of(condition("wingspan", "=", "2"))).isEmpty());
+        assertTrue(queryService.query(List.of(condition("capacity", ">", "heavy"))).isEmpty());
+        assertTrue(queryService.query(List.of(condition("cooling", "<", "true"))).isEmpty());
+    }
+
+    @Test
+    void testQuery_IntegerAttribute_ComparedAsNumber() {
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+
+        assertEquals(List.of("DRONE-002"), queryService.query(List.of(condition("maxMoves", "=", "1500.0"))));
+        assertEquals(List.of("DRONE-001", "DRONE-003"),
+                queryService.query(List.of(condition("maxMoves", ">=", "2000"))));
+    }
+
+    @Test
+    void testQuery_DroneWithoutCapability_OnlyMatchesTopLevel() {
+        Drone bare = new Drone("DRONE-005", "Drone Epsilon", null);
+        List<Drone> drones = new ArrayList<>(testDrones);
+        drones.add(bare);
+        when(ilpClientService.getDrones()).thenReturn(drones);
+
+        assertFalse(queryService.query(List.of(condition("cooling", "!=", "true"))).contains("DRONE-005"));
+        assertFalse(queryService.query(List.of(condition("capacity", "<", "100"))).contains("DRONE-005"));
+        assertEquals(List.of("DRONE-005"), queryService.queryByPath("name", "Drone Epsilon"));
+        assertEquals(4, queryService.queryByPath("capability", "").size());
+    }
+
+    // Column store
+
+    @Test
+    void testColumns_MissingValues_NotPresentAndNaN() {
+        Drone bare = new Drone("DRONE-005", "Drone Epsilon", null);
+        List<Drone> drones = new ArrayList<>(testDrones);
+        drones.add(bare);
+
+        DroneColumns columns = DroneColumns.of(drones);
+
+        assertEquals(5, columns.size());
+        assertEquals("DRONE-005", columns.id(4));
+        assertFalse(columns.present(DroneAttribute.CAPABILITY).get(4));
+        assertTrue(Double.isNaN(columns.doubles(DroneAttribute.CAPACITY)[4]));
+        assertEquals(-1, columns.code("DRONE-999"));
+        assertEquals(columns.codes(DroneAttribute.ID)[4], columns.code("DRONE-005"));
+    }
+
+    @Test
+    void testQuery_FleetChanged_ColumnsRebuilt() {
+        List<Drone> renamed = new ArrayList<>(testDrones);
+        renamed.set(0, new Drone("DRONE-001", "Renamed", testDrones.get(0).getCapability()));
+        when(ilpClientService.getDrones()).thenReturn(testDrones, testDrones, renamed);
+
+        assertEquals(List.of("DRONE-001"), queryService.queryByPath("name", testDrones.get(0).getName()));
+        assertEquals(List.of("DRONE-001"), queryService.queryByPath("id", "DRONE-001"));
+        assertTrue(queryService.queryByPath("name", testDrones.get(0).getName()).isEmpty());
+    }
+
+    // Helper method
+    private QueryAttribute condition(String attribute, String operator, String value) {
+        QueryAttribute qa = new QueryAttribute();
+        qa.setAttribute(attribute);
+        qa.setOperator(operator);
+        qa.setValue(value);
+        return qa;
+    }
 }
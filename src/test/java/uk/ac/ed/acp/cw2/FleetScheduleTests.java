@@ -0,0 +1,136 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.model.DayAvailability;
+import uk.ac.ed.acp.cw2.model.DroneForServicePoint;
+import uk.ac.ed.acp.cw2.service.DroneSchedule;
+import uk.ac.ed.acp.cw2.service.FleetSchedule;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for DroneSchedule and FleetSchedule.
+ * Coverage:
+ * Overlapping intervals are rejected, touching intervals are allowed
+ * Released intervals can be booked again
+ * Flights must end inside the availability window of the weekday
+ * Touching windows are merged, a flight may cross their boundary but not a gap
+ * Dispatches without time or date are not restricted
+ */
+class FleetScheduleTests {
+
+    // 2025-01-06 is a Monday
+    private static final LocalDate MONDAY = LocalDate.of(2025, 1, 6);
+
+    @Test
+    void testDroneSchedule_OverlapRejected() {
+        DroneSchedule schedule = new DroneSchedule();
+
+        assertTrue(schedule.book(100, 200));
+        assertFalse(schedule.isFree(150, 250));
+        assertFalse(schedule.isFree(50, 150));
+        assertFalse(schedule.isFree(120, 180));
+        assertFalse(schedule.isFree(50, 250));
+        assertFalse(schedule.book(199, 300));
+        assertEquals(1, schedule.size());
+    }
+
+    @Test
+    void testDroneSchedule_TouchingIntervalsAllowed() {
+        DroneSchedule schedule = new DroneSchedule();
+
+        assertTrue(schedule.book(100, 200));
+        assertTrue(schedule.book(200, 300));
+        assertTrue(schedule.book(0, 100));
+        assertEquals(3, schedule.size());
+    }
+
+    @Test
+    void testDroneSchedule_ReleaseFreesInterval() {
+        DroneSchedule schedule = new DroneSchedule();
+        schedule.book(100, 200);
+
+        assertTrue(schedule.release(100));
+        assertFalse(schedule.release(100));
+        assertTrue(schedule.isFree(150, 250));
+    }
+
+    @Test
+    void testFleetSchedule_FlightMustEndInsideWindow() {
+        FleetSchedule schedule = new FleetSchedule(MONDAY, fleet("DRONE-001", "09:00:00", "17:00:00"));
+
+        assertTrue(schedule.canFly("DRONE-001", LocalTime.of(16, 0), 3600));
+        assertFalse(schedule.canFly("DRONE-001", LocalTime.of(16, 0), 3601));
+        assertFalse(schedule.canFly("DRONE-001", LocalTime.of(8, 59), 10));
+        assertFalse(schedule.canFly("DRONE-002", LocalTime.of(10, 0), 10));
+    }
+
+    @Test
+    void testFleetSchedule_OtherWeekdayHasNoWindow() {
+        FleetSchedule schedule = new FleetSchedule(MONDAY.plusDays(1),
+                fleet("DRONE-001", "09:00:00", "17:00:00"));
+
+        assertFalse(schedule.canFly("DRONE-001", LocalTime.of(10, 0), 10));
+    }
+
+    @Test
+    void testFleetSchedule_BookingBlocksOverlappingFlight() {
+        FleetSchedule schedule = new FleetSchedule(MONDAY, fleet("DRONE-001", "09:00:00", "17:00:00"));
+
+        assertTrue(schedule.book("DRONE-001", LocalTime.of(10, 0), 600));
+        assertFalse(schedule.canFly("DRONE-001", LocalTime.of(10, 5), 60));
+        assertTrue(schedule.canFly("DRONE-001", LocalTime.of(10, 10), 60));
+
+        schedule.release("DRONE-001", LocalTime.of(10, 0));
+        assertTrue(schedule.canFly("DRONE-001", LocalTime.of(10, 5), 60));
+    }
+
+    @Test
+    void testFleetSchedule_NoTimeOrDateNotRestricted() {
+        FleetSchedule schedule = new FleetSchedule(null, fleet("DRONE-001", "09:00:00", "17:00:00"));
+
+        assertTrue(schedule.canFly("DRONE-001", null, 100));
+        assertTrue(schedule.canFly("DRONE-001", LocalTime.of(20, 0), 100));
+
+        assertTrue(schedule.book("DRONE-001", LocalTime.of(20, 0), 100));
+        assertFalse(schedule.canFly("DRONE-001", LocalTime.of(20, 1), 100));
+    }
+
+    @Test
+    void testFleetSchedule_FlightAcrossTouchingWindows() {
+        FleetSchedule schedule = new FleetSchedule(MONDAY,
+                fleet("DRONE-001", "12:00:00", "15:00:00", "09:00:00", "12:00:00", "15:30:00", "17:00:00"));
+
+        assertTrue(schedule.canFly("DRONE-001", LocalTime.of(11, 30), 3600));
+        assertTrue(schedule.canFly("DRONE-001", LocalTime.of(9, 0), 6 * 3600));
+        assertFalse(schedule.canFly("DRONE-001", LocalTime.of(14, 30), 3600));
+    }
+
+    // Helper method, bounds are from / until pairs of Monday windows
+    private List<DroneForServicePoint> fleet(String droneId, String... bounds) {
+        List<DayAvailability> windows = new ArrayList<>();
+        for (int i = 0; i < bounds.length; i += 2) {
+            DayAvailability monday = new DayAvailability();
+            monday.setDayOfWeek("MONDAY");
+            monday.setFrom(bounds[i]);
+            monday.setUntil(bounds[i + 1]);
+            windows.add(monday);
+        }
+
+        DroneForServicePoint.DroneAvailability availability = new DroneForServicePoint.DroneAvailability();
+        availability.setId(droneId);
+        availability.setAvailability(windows);
+
+        DroneForServicePoint dfsp = new DroneForServicePoint();
+        dfsp.setServicePointId(1);
+        dfsp.setDrones(Collections.singletonList(availability));
+
+        return Collections.singletonList(dfsp);
+    }
+}
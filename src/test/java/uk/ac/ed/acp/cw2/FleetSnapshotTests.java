@@ -0,0 +1,269 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.DeliveryRequirements;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.model.*;
+import uk.ac.ed.acp.cw2.service.FleetSnapshot;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for FleetSnapshot.
+ * Coverage:
+ * Drones get ordinals in list order
+ * Windows are decoded to second-of-week, start inclusive and end exclusive
+ * Overlapping windows of several service points are merged
+ * Service point is the first one listing the drone
+ * Minute index agrees with the windows for every minute of the week
+ * Seconds inside a minute fall back to the windows
+ * Capability BitSets and capacity threshold narrow candidates, drones without capacity drop out
+ * Cost estimate clears drones over maxCost or without costs, keeps drones without service point
+ * Eligible drones are memoised per requirement shape in a bounded LRU map
+ * Fingerprint changes with the data and is stable otherwise
+ * Dispatch second-of-week is parsed once and reset by the setters
+ */
+class FleetSnapshotTests {
+
+    @Test
+    void testBuild_OrdinalsAndServicePoint() {
+        FleetSnapshot snapshot = buildSnapshot("09:00:00", "17:00:00");
+
+        assertEquals(2, snapshot.size());
+        assertEquals(0, snapshot.ordinalOf("A"));
+        assertEquals(1, snapshot.ordinalOf("B"));
+        assertEquals(-1, snapshot.ordinalOf("missing"));
+        assertEquals(1, snapshot.servicePoint(0).getId());
+        assertNull(snapshot.servicePoint(1));
+    }
+
+    @Test
+    void testIsAvailable_WindowBoundaries() {
+        FleetSnapshot snapshot = buildSnapshot("09:00:00", "17:00:00");
+        int monday9 = FleetSnapshot.secondOfWeek(DayOfWeek.MONDAY, 9 * 3600);
+        int monday17 = FleetSnapshot.secondOfWeek(DayOfWeek.MONDAY, 17 * 3600);
+
+        assertTrue(snapshot.isAvailable(0, monday9));
+        assertTrue(snapshot.isAvailable(0, monday17 - 1));
+        assertFalse(snapshot.isAvailable(0, monday9 - 1));
+        assertFalse(snapshot.isAvailable(0, monday17));
+        assertFalse(snapshot.isAvailable(0, FleetSnapshot.secondOfWeek(DayOfWeek.TUESDAY, 10 * 3600)));
+        assertFalse(snapshot.isAvailable(1, monday9));
+    }
+
+    @Test
+    void testBuild_MergesOverlappingWindows() {
+        DroneForServicePoint first = stationed(1, "A", window("MONDAY", "09:00:00", "12:00:00"),
+                window("WEDNESDAY", "08:00:00", "10:00:00"));
+        DroneForServicePoint second = stationed(2, "A", window("MONDAY", "11:00:00", "15:00:00"));
+
+        FleetSnapshot snapshot = FleetSnapshot.build(List.of(drone("A")), List.of(first, second),
+                List.of(new ServicePoint(1, "One", new LngLat(-3.18, 55.94))));
+
+        int[] windows = snapshot.windows(0);
+        assertEquals(4, windows.length);
+        assertEquals(FleetSnapshot.secondOfWeek(DayOfWeek.MONDAY, 9 * 3600), windows[0]);
+        assertEquals(FleetSnapshot.secondOfWeek(DayOfWeek.MONDAY, 15 * 3600), windows[1]);
+        assertTrue(snapshot.isAvailable(0, FleetSnapshot.secondOfWeek(DayOfWeek.MONDAY, 14 * 3600)));
+        assertTrue(snapshot.isAvailable(0, FleetSnapshot.secondOfWeek(DayOfWeek.WEDNESDAY, 9 * 3600)));
+        assertEquals(1, snapshot.servicePoint(0).getId());
+    }
+
+    @Test
+    void testMinuteIndex_MatchesWindowsEveryMinute() {
+        DroneForServicePoint first = stationed(1, "A", window("MONDAY", "09:00:30", "12:00:00"),
+                window("SUNDAY", "22:00:00", "23:59:59"));
+        DroneForServicePoint second = stationed(1, "B", window("MONDAY", "11:59:00", "12:00:01"),
+                window("MONDAY", "12:00:50", "13:00:00"));
+
+        FleetSnapshot snapshot = FleetSnapshot.build(List.of(drone("A"), drone("B")), List.of(first, second),
+                List.of(new ServicePoint(1, "One", new LngLat(-3.18, 55.94))));
+
+        for (int minute = 0; minute < FleetSnapshot.MINUTES_PER_WEEK; minute++) {
+            BitSet available = snapshot.availableAt(minute * 60);
+            assertEquals(snapshot.isAvailable(0, minute * 60), available.get(0), "Drone A at minute " + minute);
+            assertEquals(snapshot.isAvailable(1, minute * 60), available.get(1), "Drone B at minute " + minute);
+        }
+    }
+
+    @Test
+    void testRetainAvailable_PartialMinuteUsesWindows() {
+        FleetSnapshot snapshot = buildSnapshot("09:00:30", "17:00:00");
+        int monday9 = FleetSnapshot.secondOfWeek(DayOfWeek.MONDAY, 9 * 3600);
+
+        assertFalse(snapshot.availableAt(monday9).get(0));
+        assertFalse(snapshot.availableAt(monday9 + 29).get(0));
+        assertTrue(snapshot.availableAt(monday9 + 30).get(0));
+        assertTrue(snapshot.availableAt(monday9 + 60).get(0));
+
+        BitSet candidates = new BitSet();
+        candidates.set(1);
+        snapshot.retainAvailable(candidates, monday9 + 60);
+        assertTrue(candidates.isEmpty());
+    }
+
+    @Test
+    void testRetainCapable_CoolingHeatingAndCapacity() {
+        Drone small = drone("small");
+        small.getCapability().setCapacity(2.0);
+        small.getCapability().setCooling(true);
+        Drone large = drone("large");
+        large.getCapability().setCapacity(8.0);
+        large.getCapability().setHeating(true);
+        Drone unknown = drone("unknown");
+        unknown.getCapability().setCapacity(null);
+        Drone none = new Drone("none", "No capability", null);
+
+        FleetSnapshot snapshot = FleetSnapshot.build(List.of(small, drone("medium"), large, unknown, none),
+                List.of(), List.of());
+
+        assertEquals(BitSet.valueOf(new long[]{0b01111}), retainCapable(snapshot, null, false, false));
+        assertEquals(BitSet.valueOf(new long[]{0b00111}), retainCapable(snapshot, 2.0, false, false));
+        assertEquals(BitSet.valueOf(new long[]{0b00110}), retainCapable(snapshot, 2.5, false, false));
+        assertEquals(BitSet.valueOf(new long[]{0b00100}), retainCapable(snapshot, 8.0, false, false));
+        assertTrue(retainCapable(snapshot, 8.5, false, false).isEmpty());
+        assertEquals(BitSet.valueOf(new long[]{0b00001}), retainCapable(snapshot, null, true, false));
+        assertEquals(BitSet.valueOf(new long[]{0b00100}), retainCapable(snapshot, 1.0, false, true));
+        assertTrue(retainCapable(snapshot, null, true, true).isEmpty());
+    }
+
+    @Test
+    void testRetainWithinCost_EstimatesFromArrays() {
+        // 0.0015 away: 20 moves there and back, so A costs 1 + 1 + 20 * 0.01 = 2.2
+        LngLat delivery = new LngLat(-3.18, 55.9415);
+        Drone unpriced = drone("C");
+        unpriced.getCapability().setCostPerMove(null);
+        FleetSnapshot snapshot = FleetSnapshot.build(List.of(drone("A"), drone("B"), unpriced),
+                List.of(stationed(1, "A", window("MONDAY", "09:00:00", "17:00:00")),
+                        stationed(1, "C", window("MONDAY", "09:00:00", "17:00:00"))),
+                List.of(new ServicePoint(1, "One", new LngLat(-3.18, 55.94))));
+
+        BitSet candidates = new BitSet();
+        candidates.set(0, 3);
+        snapshot.retainWithinCost(candidates, delivery, 2.21);
+        assertEquals(BitSet.valueOf(new long[]{0b011}), candidates);
+
+        snapshot.retainWithinCost(candidates, delivery, 2.19);
+        assertEquals(BitSet.valueOf(new long[]{0b010}), candidates);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> snapshot.retainWithinCost(new BitSet(), new LngLat(null, 55.94), 10.0));
+    }
+
+    @Test
+    void testEligible_MemoisedPerShape() {
+        FleetSnapshot snapshot = buildSnapshot("09:00:00", "17:00:00");
+        MedDispatchRec monday = new MedDispatchRec();
+        monday.setDate("2025-01-06");
+        monday.setTime("10:00");
+        MedDispatchRec sameShape = new MedDispatchRec();
+        sameShape.setDate("2025-01-13");
+        sameShape.setTime("10:00");
+        DeliveryRequirements requirements = new DeliveryRequirements();
+        requirements.setCooling(false);
+        sameShape.setRequirements(requirements);
+
+        BitSet eligible = snapshot.eligible(FleetSnapshot.RequirementShape.of(monday));
+        assertEquals(BitSet.valueOf(new long[]{0b01}), eligible);
+        assertSame(eligible, snapshot.eligible(FleetSnapshot.RequirementShape.of(sameShape)));
+
+        requirements.setCapacity(6.0);
+        assertTrue(snapshot.eligible(FleetSnapshot.RequirementShape.of(sameShape)).isEmpty());
+        assertEquals(FleetSnapshot.RequirementShape.of(monday),
+                new FleetSnapshot.RequirementShape(FleetSnapshot.secondOfWeek(DayOfWeek.MONDAY, 10 * 3600),
+                        Double.NaN, false, false));
+    }
+
+    @Test
+    void testEligible_MemoBounded() {
+        FleetSnapshot snapshot = buildSnapshot("09:00:00", "17:00:00");
+        FleetSnapshot.RequirementShape first = new FleetSnapshot.RequirementShape(-1, 0.0, false, false);
+        BitSet eligible = snapshot.eligible(first);
+
+        for (int i = 1; i <= FleetSnapshot.MEMO_SIZE; i++) {
+            snapshot.eligible(new FleetSnapshot.RequirementShape(-1, i, false, false));
+        }
+
+        BitSet recomputed = snapshot.eligible(first);
+        assertNotSame(eligible, recomputed);
+        assertEquals(eligible, recomputed);
+    }
+
+    @Test
+    void testFingerprint_ChangesWithData() {
+        long version = buildSnapshot("09:00:00", "17:00:00").version();
+
+        assertEquals(version, buildSnapshot("09:00:00", "17:00:00").version());
+        assertNotEquals(version, buildSnapshot("09:00:00", "18:00:00").version());
+    }
+
+    @Test
+    void testDispatch_SecondOfWeekCached() {
+        MedDispatchRec dispatch = new MedDispatchRec();
+        assertNull(dispatch.getSecondOfWeek());
+
+        dispatch.setDate("2025-01-07");
+        dispatch.setTime("14:30");
+        int tuesday = FleetSnapshot.secondOfWeek(DayOfWeek.TUESDAY, 14 * 3600 + 30 * 60);
+        assertEquals(tuesday, dispatch.getSecondOfWeek());
+        assertSame(dispatch.getLocalDate(), dispatch.getLocalDate());
+
+        dispatch.setDate("2025-01-06");
+        assertEquals(tuesday - FleetSnapshot.SECONDS_PER_DAY, dispatch.getSecondOfWeek());
+    }
+
+    // Helper method: candidates left of the whole fleet for the requirements
+    private BitSet retainCapable(FleetSnapshot snapshot, Double capacity, boolean cooling, boolean heating) {
+        DeliveryRequirements requirements = new DeliveryRequirements();
+        requirements.setCapacity(capacity);
+        requirements.setCooling(cooling);
+        requirements.setHeating(heating);
+        BitSet candidates = new BitSet();
+        candidates.set(0, snapshot.size());
+        snapshot.retainCapable(candidates, requirements);
+        return candidates;
+    }
+
+    // Helper method: drone A at service point 1 available on Monday, drone B not stationed
+    private FleetSnapshot buildSnapshot(String from, String until) {
+        return FleetSnapshot.build(List.of(drone("A"), drone("B")),
+                List.of(stationed(1, "A", window("MONDAY", from, until))),
+                List.of(new ServicePoint(1, "One", new LngLat(-3.18, 55.94))));
+    }
+
+    // Helper method
+    private Drone drone(String id) {
+        DroneCapability cap = new DroneCapability();
+        cap.setCapacity(5.0);
+        cap.setCostPerMove(0.01);
+        cap.setCostInitial(1.0);
+        cap.setCostFinal(1.0);
+        return new Drone(id, "Drone " + id, cap);
+    }
+
+    // Helper method
+    private DroneForServicePoint stationed(int servicePointId, String droneId, DayAvailability... windows) {
+        DroneForServicePoint.DroneAvailability availability = new DroneForServicePoint.DroneAvailability();
+        availability.setId(droneId);
+        availability.setAvailability(List.of(windows));
+
+        DroneForServicePoint dfsp = new DroneForServicePoint();
+        dfsp.setServicePointId(servicePointId);
+        dfsp.setDrones(new ArrayList<>(List.of(availability)));
+        return dfsp;
+    }
+
+    // Helper method
+    private DayAvailability window(String day, String from, String until) {
+        DayAvailability availability = new DayAvailability();
+        availability.setDayOfWeek(day);
+        availability.setFrom(from);
+        availability.setUntil(until);
+        return availability;
+    }
+}
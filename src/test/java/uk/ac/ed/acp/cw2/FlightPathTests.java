@@ -0,0 +1,102 @@
+package uk.ac.ed.acp.cw2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.Delivery;
+import uk.ac.ed.acp.cw2.model.FlightPath;
+import uk.ac.ed.acp.cw2.model.LngLat;
+import uk.ac.ed.acp.cw2.service.DroneNavigation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the compact FlightPath.
+ * Coverage:
+ * Points read back with their coordinates and altitude
+ * Headings recorded for moves, hovers and jumps
+ * JSON output is identical to a List<LngLat>
+ * Growing past the initial capacity and copying
+ */
+class FlightPathTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testAddMove_RecordsHeadingsAndPoints() {
+        FlightPath path = buildPath();
+
+        assertEquals(5, path.size());
+        assertEquals(FlightPath.START, path.headingAt(0));
+        assertEquals(4, path.headingAt(1));
+        assertEquals(FlightPath.JUMP, path.headingAt(3));
+        assertEquals(FlightPath.HOVER, path.headingAt(4));
+        assertEquals(90.0, DroneNavigation.ALLOWED_ANGLES[path.headingAt(1)]);
+
+        LngLat moved = DroneNavigation.nextPosition(new LngLat(-3.186874, 55.944494), 90.0);
+        assertEquals(moved.getLng(), path.get(1).getLng());
+        assertEquals(moved.getLat(), path.get(1).getLat());
+        assertNull(path.get(1).getAlt());
+    }
+
+    @Test
+    void testSerialize_SameJsonAsLngLatList() throws Exception {
+        FlightPath path = buildPath();
+        List<LngLat> points = new ArrayList<>(path);
+
+        String compact = objectMapper.writeValueAsString(new Delivery(7, path));
+        String plain = objectMapper.writeValueAsString(new Delivery(7, points));
+
+        assertEquals(plain, compact);
+    }
+
+    @Test
+    void testSerialize_KeepsAltitude() throws Exception {
+        FlightPath path = new FlightPath(1);
+        path.add(new LngLat(-3.0, 55.0));
+        path.add(new LngLat(-3.1, 55.1, 50));
+        path.add(new LngLat(-3.2, 55.2));
+
+        assertNull(path.get(0).getAlt());
+        assertEquals(50, path.get(1).getAlt());
+        assertEquals(objectMapper.writeValueAsString(new ArrayList<>(path)),
+                objectMapper.writeValueAsString(path));
+    }
+
+    @Test
+    void testCopyOf_IndependentOfOriginal() {
+        FlightPath path = buildPath();
+        FlightPath copy = FlightPath.copyOf(path);
+        copy.add(new LngLat(0.0, 0.0));
+
+        assertEquals(5, path.size());
+        assertEquals(6, copy.size());
+        assertEquals(path.headingAt(1), copy.headingAt(1));
+        assertEquals(FlightPath.HOVER, FlightPath.copyOf(new ArrayList<>(path)).headingAt(4));
+    }
+
+    @Test
+    void testGet_OutOfRange_Throws() {
+        FlightPath path = buildPath();
+
+        assertThrows(IndexOutOfBoundsException.class, () -> path.get(5));
+        assertThrows(IndexOutOfBoundsException.class, () -> path.get(-1));
+    }
+
+    // Helper method: start, two moves, then the hover on a goal off the compass grid
+    private FlightPath buildPath() {
+        FlightPath path = new FlightPath(2);
+        LngLat current = new LngLat(-3.186874, 55.944494);
+        path.add(current);
+        for (double angle : new double[]{90.0, 337.5}) {
+            current = DroneNavigation.nextPosition(current, angle);
+            path.addMove(current, angle);
+        }
+        LngLat goal = new LngLat(current.getLng() + 0.00001, current.getLat());
+        path.add(goal);
+        path.add(goal);
+        return path;
+    }
+}
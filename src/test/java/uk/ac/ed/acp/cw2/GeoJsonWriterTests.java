@@ -0,0 +1,116 @@
+package uk.ac.ed.acp.cw2;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import uk.ac.ed.acp.cw2.dto.Delivery;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.DronePath;
+import uk.ac.ed.acp.cw2.model.FlightPath;
+import uk.ac.ed.acp.cw2.model.LngLat;
+import uk.ac.ed.acp.cw2.service.GeoJsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for GeoJsonWriter.
+ * Coverage:
+ * Fixed 6-decimal formatting matches String.format, also next to rounding ties
+ * One LineString Feature per DronePath, return legs are not listed as deliveries
+ * Empty plans give an empty FeatureCollection
+ * The output stream is left open
+ */
+class GeoJsonWriterTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @ParameterizedTest
+    @ValueSource(doubles = {-3.186874, 55.944494, 0.0, -0.0000004, -0.0000006, -0.0, 12.5, 179.9999996, 1.0000005})
+    void testFormatFixed_MatchesStringFormat(double value) {
+        char[] buffer = new char[32];
+
+        int length = GeoJsonWriter.formatFixed(value, buffer);
+
+        assertEquals(String.format(Locale.ROOT, "%.6f", value), new String(buffer, 0, length));
+    }
+
+    @Test
+    void testFormatFixed_NearTies_MatchStringFormat() {
+        char[] buffer = new char[32];
+        assertEquals("-3.175822", new String(buffer, 0, GeoJsonWriter.formatFixed(-3.1758224999999998, buffer)));
+
+        // Doubles around the half-way points of the 6th decimal, where the scaled product can round either way
+        for (int k = 0; k < 2000; k++) {
+            double tie = -3.2 + k * 0.0000371 + 0.0000005;
+            double value = Math.nextDown(Math.nextDown(tie));
+            for (int step = 0; step < 5; step++, value = Math.nextUp(value)) {
+                int length = GeoJsonWriter.formatFixed(value, buffer);
+                assertEquals(String.format(Locale.ROOT, "%.6f", value), new String(buffer, 0, length),
+                        "value " + value);
+            }
+        }
+    }
+
+    @Test
+    void testWrite_OneFeaturePerDronePath() throws Exception {
+        FlightPath outbound = new FlightPath();
+        outbound.add(new LngLat(-3.186874, 55.944494));
+        outbound.add(new LngLat(-3.187, 55.943));
+        outbound.add(new LngLat(-3.187, 55.943));
+        List<LngLat> back = List.of(new LngLat(-3.187, 55.943), new LngLat(-3.186874, 55.944494));
+
+        DronePath first = new DronePath("1", List.of(new Delivery(10, outbound), new Delivery(-1, back)));
+        DronePath second = new DronePath("2", List.of(new Delivery(11, outbound)));
+
+        JsonNode geoJson = objectMapper.readTree(write(new DeliveryPathResponse(1.0, 2, List.of(first, second))));
+
+        assertEquals("FeatureCollection", geoJson.get("type").asText());
+        assertEquals(2, geoJson.get("features").size());
+
+        JsonNode feature = geoJson.get("features").get(0);
+        assertEquals("Feature", feature.get("type").asText());
+        assertEquals("1", feature.get("properties").get("droneId").asText());
+        assertEquals(1, feature.get("properties").get("deliveryIds").size());
+        assertEquals(10, feature.get("properties").get("deliveryIds").get(0).asInt());
+        assertEquals("LineString", feature.get("geometry").get("type").asText());
+        assertEquals(5, feature.get("geometry").get("coordinates").size());
+        assertEquals(-3.186874, feature.get("geometry").get("coordinates").get(0).get(0).asDouble());
+    }
+
+    @Test
+    void testWrite_EmptyPlan_EmptyFeatureCollection() throws Exception {
+        String geoJson = write(new DeliveryPathResponse(0.0, 0, new ArrayList<>()));
+
+        assertEquals("{\"type\":\"FeatureCollection\",\"features\":[]}", geoJson);
+    }
+
+    @Test
+    void testWrite_LeavesStreamOpen() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                fail("Stream should not be closed");
+            }
+        };
+
+        GeoJsonWriter.write(new DeliveryPathResponse(0.0, 0, new ArrayList<>()), output);
+
+        assertTrue(output.size() > 0);
+    }
+
+    // Helper method
+    private String write(DeliveryPathResponse response) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        GeoJsonWriter.write(response, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
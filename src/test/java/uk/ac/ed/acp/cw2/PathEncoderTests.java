@@ -0,0 +1,133 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.Delivery;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.DronePath;
+import uk.ac.ed.acp.cw2.dto.RunLengthPath;
+import uk.ac.ed.acp.cw2.model.FlightPath;
+import uk.ac.ed.acp.cw2.model.LngLat;
+import uk.ac.ed.acp.cw2.service.DroneNavigation;
+import uk.ac.ed.acp.cw2.service.PathEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the run-length path encoding.
+ * Coverage:
+ * Runs of equal headings collapse into one [code, count] pair
+ * Hover and jump markers, jumps carry their coordinates
+ * Decoding (as a client would) reproduces the planned points
+ * Response encoding keeps totals and drops flightPath
+ */
+class PathEncoderTests {
+
+    @Test
+    void testEncode_CollapsesRuns() {
+        FlightPath path = buildPath();
+
+        RunLengthPath encoded = PathEncoder.encode(path);
+
+        assertArrayEquals(new double[]{-3.186874, 55.944494}, encoded.getStart());
+        assertEquals(4, encoded.getRuns().length);
+        assertArrayEquals(new int[]{4, 3}, encoded.getRuns()[0]);
+        assertArrayEquals(new int[]{0, 2}, encoded.getRuns()[1]);
+        assertArrayEquals(new int[]{RunLengthPath.JUMP, 1}, encoded.getRuns()[2]);
+        assertArrayEquals(new int[]{RunLengthPath.HOVER, 1}, encoded.getRuns()[3]);
+        assertEquals(1, encoded.getJumps().length);
+    }
+
+    @Test
+    void testDecode_ReproducesPoints() {
+        FlightPath path = buildPath();
+
+        List<LngLat> decoded = decode(PathEncoder.encode(path));
+
+        assertEquals(path.size(), decoded.size());
+        for (int i = 0; i < path.size(); i++) {
+            assertEquals(path.lngAt(i), decoded.get(i).getLng());
+            assertEquals(path.latAt(i), decoded.get(i).getLat());
+        }
+    }
+
+    @Test
+    void testEncode_PlainList_UsesJumps() {
+        List<LngLat> points = List.of(new LngLat(-3.0, 55.0), new LngLat(-3.1, 55.1), new LngLat(-3.1, 55.1));
+
+        RunLengthPath encoded = PathEncoder.encode(points);
+
+        assertArrayEquals(new int[]{RunLengthPath.JUMP, 1}, encoded.getRuns()[0]);
+        assertArrayEquals(new int[]{RunLengthPath.HOVER, 1}, encoded.getRuns()[1]);
+        assertEquals(3, decode(encoded).size());
+    }
+
+    @Test
+    void testEncodeResponse_KeepsTotals() {
+        DronePath dronePath = new DronePath("1", List.of(new Delivery(5, buildPath())));
+        DeliveryPathResponse response = new DeliveryPathResponse(12.5, 7, List.of(dronePath));
+        response.setPartial(true);
+
+        DeliveryPathResponse encoded = PathEncoder.encode(response);
+
+        assertEquals(12.5, encoded.getTotalCost());
+        assertEquals(7, encoded.getTotalMoves());
+        assertTrue(encoded.isPartial());
+        Delivery delivery = encoded.getDronePaths().get(0).getDeliveries().get(0);
+        assertEquals(5, delivery.getDeliveryId());
+        assertNull(delivery.getFlightPath());
+        assertNotNull(delivery.getEncodedPath());
+    }
+
+    @Test
+    void testDecode_UnknownCode_Throws() {
+        RunLengthPath encoded = new RunLengthPath(new double[]{-3.0, 55.0}, new int[][]{{42, 1}}, new double[0][]);
+
+        assertThrows(IllegalArgumentException.class, () -> decode(encoded));
+    }
+
+    // Helper method: rebuilds the points of an encoded path like a client would, unknown codes throw
+    private List<LngLat> decode(RunLengthPath encoded) {
+        List<LngLat> points = new ArrayList<>();
+        if (encoded.getStart() == null || encoded.getStart().length < 2) {
+            return points;
+        }
+
+        LngLat current = new LngLat(encoded.getStart()[0], encoded.getStart()[1]);
+        points.add(current);
+        int jump = 0;
+
+        for (int[] run : encoded.getRuns()) {
+            for (int n = 0; n < run[1]; n++) {
+                if (run[0] >= 0 && run[0] < DroneNavigation.ALLOWED_ANGLES.length) {
+                    current = DroneNavigation.nextPosition(current, DroneNavigation.ALLOWED_ANGLES[run[0]]);
+                } else if (run[0] == RunLengthPath.JUMP) {
+                    double[] target = encoded.getJumps()[jump++];
+                    current = new LngLat(target[0], target[1]);
+                } else if (run[0] != RunLengthPath.HOVER) {
+                    throw new IllegalArgumentException("Unknown run code: " + run[0]);
+                }
+                points.add(current);
+            }
+        }
+
+        return points;
+    }
+
+    // Helper method: three moves east, two north, then a jump onto the goal and the hover
+    private FlightPath buildPath() {
+        FlightPath path = new FlightPath();
+        LngLat current = new LngLat(-3.186874, 55.944494);
+        path.add(current);
+        for (double angle : new double[]{90, 90, 90, 0, 0}) {
+            current = DroneNavigation.nextPosition(current, angle);
+            path.addMove(current, angle);
+        }
+        LngLat goal = new LngLat(current.getLng() + 0.00002, current.getLat() + 0.00001);
+        path.add(goal);
+        path.add(goal);
+        return path;
+    }
+}
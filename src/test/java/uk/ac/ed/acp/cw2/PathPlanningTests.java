@@ -9,9 +9,16 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import uk.ac.ed.acp.cw2.dto.*;
 import uk.ac.ed.acp.cw2.model.*;
 import uk.ac.ed.acp.cw2.service.AvailabilityService;
+import uk.ac.ed.acp.cw2.service.EligibilityMatrix;
+import uk.ac.ed.acp.cw2.service.GeoJsonWriter;
 import uk.ac.ed.acp.cw2.service.IlpClientService;
 import uk.ac.ed.acp.cw2.service.PathPlanningService;
+import uk.ac.ed.acp.cw2.service.PlanningDeadline;
+import uk.ac.ed.acp.cw2.service.PlanningMode;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +35,7 @@ import static org.mockito.Mockito.*;
  * Return flight is separate delivery (deliveryId = -1)
  * TotalMoves calculation includes hover
  * GeoJSON generation
+ * Eligibility is fetched once per request, not per dispatch
  */
 @ExtendWith(MockitoExtension.class)
 class PathPlanningTests {
@@ -122,8 +130,7 @@ class PathPlanningTests {
         when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
         when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
         when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
-        when(availabilityService.queryAvailableDrones(anyList()))
-                .thenReturn(Collections.singletonList("DRONE-001"));  // STRING
+        stubEligibleDrones("DRONE-001");  // STRING
 
         DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
                 Collections.singletonList(dispatch));
@@ -148,8 +155,7 @@ class PathPlanningTests {
         when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
         when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
         when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
-        when(availabilityService.queryAvailableDrones(anyList()))
-                .thenReturn(Collections.singletonList("DRONE-001"));
+        stubEligibleDrones("DRONE-001");
 
         DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
                 Collections.singletonList(dispatch));
@@ -174,8 +180,7 @@ class PathPlanningTests {
         when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
         when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
         when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
-        when(availabilityService.queryAvailableDrones(anyList()))
-                .thenReturn(Collections.singletonList("DRONE-001"));
+        stubEligibleDrones("DRONE-001");
 
         DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
                 Collections.singletonList(dispatch));
@@ -208,8 +213,7 @@ class PathPlanningTests {
         when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
         when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
         when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
-        when(availabilityService.queryAvailableDrones(anyList()))
-                .thenReturn(Collections.singletonList("DRONE-001"));
+        stubEligibleDrones("DRONE-001");
 
         DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
                 Collections.singletonList(dispatch));
@@ -236,8 +240,7 @@ class PathPlanningTests {
         when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
         when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
         when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
-        when(availabilityService.queryAvailableDrones(anyList()))
-                .thenReturn(Collections.singletonList("DRONE-001"));
+        stubEligibleDrones("DRONE-001");
 
         DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
                 Collections.singletonList(dispatch));
@@ -263,8 +266,7 @@ class PathPlanningTests {
         when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
         when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
         when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
-        when(availabilityService.queryAvailableDrones(anyList()))
-                .thenReturn(Collections.singletonList("DRONE-001"));
+        stubEligibleDrones("DRONE-001");
 
         DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
                 Collections.singletonList(dispatch));
@@ -311,8 +313,7 @@ class PathPlanningTests {
         when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
         when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
         when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
-        when(availabilityService.queryAvailableDrones(anyList()))
-                .thenReturn(Collections.emptyList());  // No drones available
+        stubEligibleDrones();  // No drones available
 
         DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
                 Collections.singletonList(dispatch));
@@ -323,7 +324,7 @@ class PathPlanningTests {
     }
 
     @Test
-    void testCalcDeliveryPathAsGeoJson_ValidInput_ReturnsLineString() {
+    void testCalcDeliveryPathAsGeoJson_ValidInput_ReturnsLineString() throws Exception {
         MedDispatchRec dispatch = createDispatch(123, "2025-01-06", "14:30",
                 5.0, new LngLat(-3.187, 55.943));
 
@@ -331,15 +332,15 @@ class PathPlanningTests {
         when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
         when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
         when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
-        when(availabilityService.queryAvailableDrones(anyList()))
-                .thenReturn(Collections.singletonList("DRONE-001"));
+        stubEligibleDrones("DRONE-001");
 
-        String geoJson = pathPlanningService.calcDeliveryPathAsGeoJson(
-                Collections.singletonList(dispatch));
+        String geoJson = writeGeoJson(pathPlanningService.calcDeliveryPath(
+                Collections.singletonList(dispatch)));
 
         // Should be valid GeoJSON LineString
         assertNotNull(geoJson);
         assertTrue(geoJson.contains("\"type\":\"LineString\""));
+        assertTrue(geoJson.contains("\"droneId\":\"DRONE-001\""));
         assertTrue(geoJson.contains("\"coordinates\""));
         assertTrue(geoJson.startsWith("{"));
         assertTrue(geoJson.endsWith("}"));
@@ -350,8 +351,8 @@ class PathPlanningTests {
     }
 
     @Test
-    void testCalcDeliveryPathAsGeoJson_EmptyInput_ReturnsEmptyFeatureCollection() {
-        String geoJson = pathPlanningService.calcDeliveryPathAsGeoJson(new ArrayList<>());
+    void testCalcDeliveryPathAsGeoJson_EmptyInput_ReturnsEmptyFeatureCollection() throws Exception {
+        String geoJson = writeGeoJson(pathPlanningService.calcDeliveryPath(new ArrayList<>()));
 
         // Should return empty FeatureCollection
         assertNotNull(geoJson);
@@ -368,8 +369,7 @@ class PathPlanningTests {
         when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
         when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
         when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
-        when(availabilityService.queryAvailableDrones(anyList()))
-                .thenReturn(Collections.singletonList("DRONE-001"));
+        stubEligibleDrones("DRONE-001");
 
         pathPlanningService.calcDeliveryPath(Collections.singletonList(dispatch));
 
@@ -378,7 +378,407 @@ class PathPlanningTests {
         verify(ilpClientService, times(1)).getServicePoints();
         verify(ilpClientService, times(1)).getDronesForServicePoints();
         verify(ilpClientService, times(1)).getRestrictedAreas();
-        verify(availabilityService, times(1)).queryAvailableDrones(anyList());
+        verify(availabilityService, times(1)).eligibilityMatrix(anyList(), eq(testDrones),
+                eq(testDronesForServicePoints), eq(testServicePoints));
+        verify(availabilityService, never()).eligibilityMatrix(anyList());
+        verify(availabilityService, never()).queryAvailableDrones(anyList());
+    }
+
+    @Test
+    void testCalcDeliveryPath_BatchedMode_ChainsNearbyDispatchesIntoOneTour() {
+        MedDispatchRec first = createDispatch(123, "2025-01-06", "14:30",
+                2.0, new LngLat(-3.187, 55.943));
+        MedDispatchRec second = createDispatch(124, "2025-01-06", "14:45",
+                2.0, new LngLat(-3.1875, 55.9432));
+
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001");
+
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
+                Arrays.asList(first, second), PlanningMode.BATCHED);
+
+        // One flight: SP → first → second → SP
+        assertEquals(1, response.getDronePaths().size());
+        List<Delivery> deliveries = response.getDronePaths().get(0).getDeliveries();
+        assertEquals(3, deliveries.size(), "Two delivery legs plus return");
+        assertEquals(-1, deliveries.get(2).getDeliveryId());
+
+        Set<Integer> deliveredIds = new HashSet<>(Arrays.asList(
+                deliveries.get(0).getDeliveryId(), deliveries.get(1).getDeliveryId()));
+        assertEquals(Set.of(123, 124), deliveredIds);
+
+        // Consecutive legs join up: each leg starts where the previous hover was
+        List<LngLat> firstLeg = deliveries.get(0).getFlightPath();
+        LngLat hover = firstLeg.get(firstLeg.size() - 1);
+        LngLat secondLegStart = deliveries.get(1).getFlightPath().get(0);
+        assertEquals(hover.getLng(), secondLegStart.getLng(), 1e-12);
+        assertEquals(hover.getLat(), secondLegStart.getLat(), 1e-12);
+    }
+
+    @Test
+    void testCalcDeliveryPath_BatchedMode_FewerMovesThanSingle() {
+        List<MedDispatchRec> dispatches = Arrays.asList(
+                createDispatch(123, "2025-01-06", "14:30", 2.0, new LngLat(-3.187, 55.943)),
+                createDispatch(124, "2025-01-06", "14:45", 2.0, new LngLat(-3.1875, 55.9432)),
+                createDispatch(125, "2025-01-06", "15:00", 2.0, new LngLat(-3.1868, 55.9428)));
+
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001");
+
+        DeliveryPathResponse single = pathPlanningService.calcDeliveryPath(dispatches, PlanningMode.SINGLE);
+        DeliveryPathResponse batched = pathPlanningService.calcDeliveryPath(dispatches, PlanningMode.BATCHED);
+
+        assertEquals(3, single.getDronePaths().size());
+        assertEquals(1, batched.getDronePaths().size());
+        assertTrue(batched.getTotalMoves() < single.getTotalMoves(),
+                "Chained tour should need fewer moves than three round trips");
+        assertTrue(batched.getTotalCost() < single.getTotalCost());
+    }
+
+    @Test
+    void testCalcDeliveryPath_BatchedMode_CapacitySplitsTours() {
+        // Drone capacity is 10, so two 6.0 dispatches cannot share a flight
+        List<MedDispatchRec> dispatches = Arrays.asList(
+                createDispatch(123, "2025-01-06", "14:30", 6.0, new LngLat(-3.187, 55.943)),
+                createDispatch(124, "2025-01-06", "14:45", 6.0, new LngLat(-3.1875, 55.9432)));
+
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001");
+
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
+                dispatches, PlanningMode.BATCHED);
+
+        assertEquals(2, response.getDronePaths().size());
+        for (DronePath dronePath : response.getDronePaths()) {
+            assertEquals(2, dronePath.getDeliveries().size());
+        }
+    }
+
+    @Test
+    void testCalcDeliveryPath_MaxMovesTooSmall_NoPathPlanned() {
+        MedDispatchRec dispatch = createDispatch(123, "2025-01-06", "14:30",
+                5.0, new LngLat(-3.187, 55.943));
+
+        // Round trip needs about 22 moves
+        testDrones.get(0).getCapability().setMaxMoves(10);
+
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001");
+
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
+                Collections.singletonList(dispatch));
+
+        assertTrue(response.getDronePaths().isEmpty());
+        assertEquals(0, response.getTotalMoves());
+    }
+
+    @Test
+    void testCalcDeliveryPath_MaxMovesExceeded_NextDroneChosen() {
+        MedDispatchRec dispatch = createDispatch(123, "2025-01-06", "14:30",
+                5.0, new LngLat(-3.187, 55.943));
+
+        DroneCapability shortRange = new DroneCapability();
+        shortRange.setCooling(false);
+        shortRange.setHeating(false);
+        shortRange.setCapacity(10.0);
+        shortRange.setMaxMoves(5);
+        shortRange.setCostPerMove(0.001);
+        shortRange.setCostInitial(1.0);
+        shortRange.setCostFinal(1.0);
+        Drone shortRangeDrone = new Drone("DRONE-000", "Drone Short", shortRange);
+
+        DroneForServicePoint.DroneAvailability shortRangeAvail =
+                new DroneForServicePoint.DroneAvailability();
+        shortRangeAvail.setId("DRONE-000");
+        shortRangeAvail.setAvailability(
+                testDronesForServicePoints.get(0).getDrones().get(0).getAvailability());
+        testDronesForServicePoints.get(0).setDrones(Arrays.asList(
+                shortRangeAvail, testDronesForServicePoints.get(0).getDrones().get(0)));
+
+        when(ilpClientService.getDrones()).thenReturn(Arrays.asList(shortRangeDrone, testDrones.get(0)));
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-000", "DRONE-001");
+
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
+                Collections.singletonList(dispatch));
+
+        assertEquals(1, response.getDronePaths().size());
+        assertEquals("DRONE-001", response.getDronePaths().get(0).getDroneId(),
+                "Drone whose maxMoves cannot cover the round trip must be skipped");
+        assertTrue(response.getTotalMoves() <= 2000);
+    }
+
+    @Test
+    void testCalcDeliveryPath_CheapestDroneChosenOverFirstAvailable() {
+        MedDispatchRec dispatch = createDispatch(123, "2025-01-06", "14:30",
+                5.0, new LngLat(-3.187, 55.943));
+
+        Drone cheapDrone = addDroneAtServicePoint("DRONE-002", 0.005, 2.0, 1.0, 2000);
+
+        when(ilpClientService.getDrones()).thenReturn(Arrays.asList(testDrones.get(0), cheapDrone));
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001", "DRONE-002");
+
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
+                Collections.singletonList(dispatch));
+
+        assertEquals("DRONE-002", response.getDronePaths().get(0).getDroneId(),
+                "Lower fixed and per-move cost should win over list order");
+
+        DroneCapability cap = cheapDrone.getCapability();
+        assertEquals(cap.getCostInitial() + cap.getCostFinal()
+                        + response.getTotalMoves() * cap.getCostPerMove(),
+                response.getTotalCost(), 0.0001);
+    }
+
+    @Test
+    void testCalcDeliveryPath_OptimalMode_SpreadsWaveAcrossDrones() {
+        // Greedy gives both dispatches to the cheap drone, a wave uses each drone once
+        List<MedDispatchRec> dispatches = Arrays.asList(
+                createDispatch(123, "2025-01-06", "14:30", 2.0, new LngLat(-3.187, 55.943)),
+                createDispatch(124, "2025-01-06", "14:30", 2.0, new LngLat(-3.1875, 55.9432)));
+
+        Drone cheapDrone = addDroneAtServicePoint("DRONE-002", 0.005, 2.0, 1.0, 2000);
+
+        when(ilpClientService.getDrones()).thenReturn(Arrays.asList(testDrones.get(0), cheapDrone));
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001", "DRONE-002");
+
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
+                dispatches, PlanningMode.OPTIMAL);
+
+        assertEquals(2, response.getDronePaths().size());
+        Set<String> usedDrones = new HashSet<>();
+        for (DronePath dronePath : response.getDronePaths()) {
+            usedDrones.add(dronePath.getDroneId());
+        }
+        assertEquals(Set.of("DRONE-001", "DRONE-002"), usedDrones);
+    }
+
+    @Test
+    void testCalcDeliveryPath_OptimalMode_IneligibleDroneNeverAssigned() {
+        MedDispatchRec dispatch = createDispatch(123, "2025-01-06", "14:30",
+                5.0, new LngLat(-3.187, 55.943));
+
+        Drone cheapDrone = addDroneAtServicePoint("DRONE-002", 0.005, 2.0, 1.0, 2000);
+
+        when(ilpClientService.getDrones()).thenReturn(Arrays.asList(testDrones.get(0), cheapDrone));
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001");
+
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
+                Collections.singletonList(dispatch), PlanningMode.OPTIMAL);
+
+        assertEquals(1, response.getDronePaths().size());
+        assertEquals("DRONE-001", response.getDronePaths().get(0).getDroneId());
+    }
+
+    @Test
+    void testCalcDeliveryPath_OverlappingFlights_DroneNotDoubleBooked() {
+        // Same departure time, the only drone is still out with the first dispatch
+        List<MedDispatchRec> dispatches = Arrays.asList(
+                createDispatch(123, "2025-01-06", "14:30", 2.0, new LngLat(-3.187, 55.943)),
+                createDispatch(124, "2025-01-06", "14:30", 2.0, new LngLat(-3.1875, 55.9432)));
+
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001");
+
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(dispatches);
+
+        assertEquals(1, response.getDronePaths().size());
+        assertEquals(123, response.getDronePaths().get(0).getDeliveries().get(0).getDeliveryId());
+    }
+
+    @Test
+    void testCalcDeliveryPath_SequentialFlights_DroneReused() {
+        List<MedDispatchRec> dispatches = Arrays.asList(
+                createDispatch(123, "2025-01-06", "14:30", 2.0, new LngLat(-3.187, 55.943)),
+                createDispatch(124, "2025-01-06", "15:30", 2.0, new LngLat(-3.1875, 55.9432)));
+
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001");
+
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(dispatches);
+
+        assertEquals(2, response.getDronePaths().size());
+        for (DronePath dronePath : response.getDronePaths()) {
+            assertEquals("DRONE-001", dronePath.getDroneId());
+        }
+    }
+
+    @Test
+    void testCalcDeliveryPath_FlightEndsAfterWindow_NotPlanned() {
+        // Departs seconds before the 17:00 window closes, the return cannot make it
+        MedDispatchRec dispatch = createDispatch(123, "2025-01-06", "16:59:55",
+                5.0, new LngLat(-3.187, 55.943));
+
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001");
+
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
+                Collections.singletonList(dispatch));
+
+        assertTrue(response.getDronePaths().isEmpty());
+    }
+
+    @Test
+    void testCalcDeliveryPath_OptimalMode_BusyDroneSkippedInLaterWave() {
+        List<MedDispatchRec> dispatches = Arrays.asList(
+                createDispatch(123, "2025-01-06", "14:30", 2.0, new LngLat(-3.187, 55.943)),
+                createDispatch(124, "2025-01-06", "14:30", 2.0, new LngLat(-3.1875, 55.9432)));
+
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001");
+
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
+                dispatches, PlanningMode.OPTIMAL);
+
+        assertEquals(1, response.getDronePaths().size());
+    }
+
+    @Test
+    void testCalcDeliveryPath_DeadlineReached_ReturnsPartialPlan() throws InterruptedException {
+        List<MedDispatchRec> dispatches = Arrays.asList(
+                createDispatch(123, "2025-01-06", "14:30", 2.0, new LngLat(-3.187, 55.943)),
+                createDispatch(124, "2025-01-06", "15:30", 2.0, new LngLat(-3.1875, 55.9432)));
+
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+
+        PlanningDeadline deadline = PlanningDeadline.afterMillis(1);
+        Thread.sleep(5);
+
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
+                dispatches, PlanningMode.SINGLE, deadline);
+
+        assertTrue(response.isPartial());
+        assertTrue(response.getDronePaths().size() < dispatches.size());
+    }
+
+    @Test
+    void testCalcDeliveryPath_NoDeadline_NotPartial() {
+        MedDispatchRec dispatch = createDispatch(123, "2025-01-06", "14:30",
+                5.0, new LngLat(-3.187, 55.943));
+
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001");
+
+        DeliveryPathResponse response = pathPlanningService.calcDeliveryPath(
+                Collections.singletonList(dispatch), PlanningMode.BATCHED, PlanningDeadline.none());
+
+        assertFalse(response.isPartial());
+        assertEquals(1, response.getDronePaths().size());
+    }
+
+    @Test
+    void testCalcDeliveryPath_ProgressReportedPerDateGroup() {
+        List<MedDispatchRec> dispatches = Arrays.asList(
+                createDispatch(123, "2025-01-06", "14:30", 2.0, new LngLat(-3.187, 55.943)),
+                createDispatch(124, "2025-01-13", "14:30", 2.0, new LngLat(-3.1875, 55.9432)),
+                createDispatch(125, null, null, 2.0, new LngLat(-3.1875, 55.9432)));
+
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001");
+
+        List<String> progress = new ArrayList<>();
+        pathPlanningService.calcDeliveryPath(dispatches, PlanningMode.SINGLE, PlanningDeadline.none(),
+                (planned, total) -> progress.add(planned + "/" + total));
+
+        assertEquals(Arrays.asList("1/3", "2/3", "3/3"), progress);
+    }
+
+    @Test
+    void testStreamDeliveryPath_EmitsSamePathsAsCalcDeliveryPath() {
+        List<MedDispatchRec> dispatches = Arrays.asList(
+                createDispatch(123, "2025-01-06", "14:30", 2.0, new LngLat(-3.187, 55.943)),
+                createDispatch(124, "2025-01-06", "15:30", 2.0, new LngLat(-3.1875, 55.9432)));
+
+        when(ilpClientService.getDrones()).thenReturn(testDrones);
+        when(ilpClientService.getServicePoints()).thenReturn(testServicePoints);
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(testDronesForServicePoints);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(testRestrictedAreas);
+        stubEligibleDrones("DRONE-001");
+
+        DeliveryPathResponse full = pathPlanningService.calcDeliveryPath(dispatches);
+
+        List<DronePath> streamed = new ArrayList<>();
+        DeliveryPathResponse totals = pathPlanningService.streamDeliveryPath(
+                dispatches, PlanningMode.SINGLE, PlanningDeadline.none(), streamed::add);
+
+        assertTrue(totals.getDronePaths().isEmpty(), "Streamed paths are not kept in the totals");
+        assertEquals(full.getTotalMoves(), totals.getTotalMoves());
+        assertEquals(full.getTotalCost(), totals.getTotalCost(), 0.0001);
+        assertEquals(full.getDronePaths().size(), streamed.size());
+        for (int i = 0; i < streamed.size(); i++) {
+            assertEquals(full.getDronePaths().get(i).getDeliveries().get(0).getDeliveryId(),
+                    streamed.get(i).getDeliveries().get(0).getDeliveryId());
+        }
+    }
+
+    // Helper method
+    private Drone addDroneAtServicePoint(String id, double costPerMove, double costInitial,
+                                         double costFinal, int maxMoves) {
+        DroneCapability cap = new DroneCapability();
+        cap.setCooling(false);
+        cap.setHeating(false);
+        cap.setCapacity(10.0);
+        cap.setMaxMoves(maxMoves);
+        cap.setCostPerMove(costPerMove);
+        cap.setCostInitial(costInitial);
+        cap.setCostFinal(costFinal);
+
+        DroneForServicePoint.DroneAvailability availability =
+                new DroneForServicePoint.DroneAvailability();
+        availability.setId(id);
+        availability.setAvailability(
+                testDronesForServicePoints.get(0).getDrones().get(0).getAvailability());
+
+        List<DroneForServicePoint.DroneAvailability> stationed =
+                new ArrayList<>(testDronesForServicePoints.get(0).getDrones());
+        stationed.add(availability);
+        testDronesForServicePoints.get(0).setDrones(stationed);
+
+        return new Drone(id, "Drone " + id, cap);
     }
 
     // Helper method
@@ -397,4 +797,23 @@ class PathPlanningTests {
 
         return dispatch;
     }
+
+    // Helper method: every dispatch of the request may use the given drones
+    private void stubEligibleDrones(String... droneIds) {
+        when(availabilityService.eligibilityMatrix(anyList(), anyList(), anyList(), anyList())).thenAnswer(invocation -> {
+            List<MedDispatchRec> dispatches = invocation.getArgument(0);
+            BitSet all = new BitSet();
+            all.set(0, droneIds.length);
+            Map<MedDispatchRec, BitSet> rows = new IdentityHashMap<>();
+            dispatches.forEach(dispatch -> rows.put(dispatch, all));
+            return new EligibilityMatrix(List.of(droneIds), rows);
+        });
+    }
+
+    // Helper method
+    private String writeGeoJson(DeliveryPathResponse response) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        GeoJsonWriter.write(response, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
 }
@@ -0,0 +1,215 @@
+package uk.ac.ed.acp.cw2;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.DelegatingServletOutputStream;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import uk.ac.ed.acp.cw2.configuration.PayloadCompressionFilter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for PayloadCompressionFilter.
+ * Coverage:
+ * Large JSON bodies are gzipped when the client accepts it
+ * Bodies below the threshold, without Accept-Encoding or of NDJSON type are sent as is
+ * Accept-Encoding q values are honoured, gzip;q=0 refuses compression
+ * Raw and sent bytes are recorded per endpoint pattern
+ * A WriteListener is handed to the container's stream and the body is sent as is
+ */
+class PayloadCompressionTests {
+
+    private MeterRegistry meterRegistry;
+    private PayloadCompressionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        ObjectProvider<MeterRegistry> provider = beanFactory.getBeanProvider(MeterRegistry.class);
+        filter = new PayloadCompressionFilter(provider, true, 1024);
+    }
+
+    @Test
+    void testLargeJson_Gzipped() throws Exception {
+        String body = largeBody();
+
+        MockHttpServletResponse response = perform(body, MediaType.APPLICATION_JSON_VALUE, "gzip, deflate");
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        byte[] sent = response.getContentAsByteArray();
+        assertTrue(sent.length < body.length() / 4);
+        assertEquals(body, gunzip(sent));
+
+        DistributionSummary raw = summary("raw", "gzip");
+        DistributionSummary compressed = summary("sent", "gzip");
+        assertEquals(body.length(), raw.totalAmount());
+        assertEquals(sent.length, compressed.totalAmount());
+    }
+
+    @Test
+    void testSmallJson_SentAsIs() throws Exception {
+        MockHttpServletResponse response = perform("{\"totalMoves\":0}", MediaType.APPLICATION_JSON_VALUE, "gzip, deflate");
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals("{\"totalMoves\":0}", response.getContentAsString());
+        assertEquals(16, response.getContentLength());
+        assertEquals(16, summary("sent", "identity").totalAmount());
+    }
+
+    @Test
+    void testNoAcceptEncoding_SentAsIs() throws Exception {
+        String body = largeBody();
+
+        MockHttpServletResponse response = perform(body, MediaType.APPLICATION_JSON_VALUE, null);
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(body, response.getContentAsString());
+        assertEquals(body.length(), summary("raw", "identity").totalAmount());
+    }
+
+    @Test
+    void testAcceptEncoding_QualityHonoured() throws Exception {
+        String body = largeBody();
+
+        assertNull(perform(body, MediaType.APPLICATION_JSON_VALUE, "gzip;q=0, deflate")
+                .getHeader("Content-Encoding"));
+        assertNull(perform(body, MediaType.APPLICATION_JSON_VALUE, "deflate, *;q=0")
+                .getHeader("Content-Encoding"));
+        assertEquals("gzip", perform(body, MediaType.APPLICATION_JSON_VALUE, "deflate;q=1.0, GZIP; q=0.5")
+                .getHeader("Content-Encoding"));
+        assertEquals("gzip", perform(body, MediaType.APPLICATION_JSON_VALUE, "br, *")
+                .getHeader("Content-Encoding"));
+    }
+
+    @Test
+    void testNdjson_NeverCompressed() throws Exception {
+        String body = largeBody();
+
+        MockHttpServletResponse response = perform(body, MediaType.APPLICATION_NDJSON_VALUE, "gzip, deflate");
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(body, response.getContentAsString());
+    }
+
+    @Test
+    void testWriteListener_DelegatedToContainerStream() throws Exception {
+        String body = largeBody();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/calcDeliveryPath");
+        request.addHeader("Accept-Encoding", "gzip");
+        WriteListener listener = mock(WriteListener.class);
+        List<WriteListener> registered = new ArrayList<>();
+
+        // The mock's own stream does not support listeners, this one records them
+        MockHttpServletResponse response = new MockHttpServletResponse() {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return new DelegatingServletOutputStream(super.getOutputStream()) {
+                    @Override
+                    public boolean isReady() {
+                        return false;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        registered.add(writeListener);
+                    }
+                };
+            }
+        };
+
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/calcDeliveryPath");
+                resp.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                resp.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8), 0, 10);
+                resp.getOutputStream().setWriteListener(listener);
+                assertFalse(resp.getOutputStream().isReady());
+                resp.getOutputStream().write(body.substring(10).getBytes(StandardCharsets.UTF_8));
+            }
+        };
+
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+
+        assertEquals(List.of(listener), registered);
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(body, response.getContentAsString());
+        assertEquals(body.length(), summary("sent", "identity").totalAmount());
+    }
+
+    // Helper method
+    private MockHttpServletResponse perform(String body, String contentType, String acceptEncoding) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/calcDeliveryPath");
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/calcDeliveryPath");
+                resp.setContentType(contentType);
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                // Written in chunks with flushes in between, like the message converters do
+                for (int i = 0; i < bytes.length; i += 100) {
+                    resp.getOutputStream().write(bytes, i, Math.min(100, bytes.length - i));
+                    resp.getOutputStream().flush();
+                }
+            }
+        };
+
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+
+    // Helper method
+    private DistributionSummary summary(String kind, String encoding) {
+        return meterRegistry.get(PayloadCompressionFilter.METRIC_NAME)
+                .tag("uri", "/api/v1/calcDeliveryPath")
+                .tag("kind", kind)
+                .tag("encoding", encoding)
+                .summary();
+    }
+
+    // Helper method
+    private String largeBody() {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            body.append(i == 0 ? "" : ",").append("{\"lng\":-3.186874,\"lat\":55.944494,\"alt\":null}");
+        }
+        return body.append("]").toString();
+    }
+
+    // Helper method
+    private String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package uk.ac.ed.acp.cw2;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.Delivery;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.DeliveryRequirements;
+import uk.ac.ed.acp.cw2.dto.DronePath;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.model.FlightPath;
+import uk.ac.ed.acp.cw2.model.LngLat;
+import uk.ac.ed.acp.cw2.service.DroneNavigation;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Payload comparison of JSON and CBOR for the high-volume endpoints.
+ * Coverage:
+ * CBOR plans decode to the same paths as JSON
+ * CBOR is smaller than JSON for a day of deliveries
+ * MedDispatchRec requests round-trip through CBOR
+ * MedDispatchRec parse caches cannot be set from the payload
+ */
+class PayloadFormatTests {
+
+    // Both configured like the server side message converters
+    private final ObjectMapper jsonMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private final CBORMapper cborMapper = CBORMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Test
+    void testCbor_SamePlanAsJson() throws Exception {
+        DeliveryPathResponse plan = buildPlan(5, 200);
+
+        DeliveryPathResponse fromJson = jsonMapper.readValue(jsonMapper.writeValueAsBytes(plan),
+                DeliveryPathResponse.class);
+        DeliveryPathResponse fromCbor = cborMapper.readValue(cborMapper.writeValueAsBytes(plan),
+                DeliveryPathResponse.class);
+
+        assertEquals(fromJson.getTotalMoves(), fromCbor.getTotalMoves());
+        List<LngLat> jsonPath = fromJson.getDronePaths().get(4).getDeliveries().get(0).getFlightPath();
+        List<LngLat> cborPath = fromCbor.getDronePaths().get(4).getDeliveries().get(0).getFlightPath();
+        assertEquals(jsonPath.size(), cborPath.size());
+        for (int i = 0; i < jsonPath.size(); i++) {
+            assertEquals(jsonPath.get(i).getLng(), cborPath.get(i).getLng());
+            assertEquals(jsonPath.get(i).getLat(), cborPath.get(i).getLat());
+        }
+    }
+
+    @Test
+    void testCbor_SmallerThanJson() throws Exception {
+        DeliveryPathResponse plan = buildPlan(40, 300);
+
+        int jsonBytes = jsonMapper.writeValueAsBytes(plan).length;
+        int cborBytes = cborMapper.writeValueAsBytes(plan).length;
+
+        assertTrue(cborBytes < jsonBytes * 0.8,
+                "CBOR " + cborBytes + " bytes should be well below JSON " + jsonBytes + " bytes");
+    }
+
+    @Test
+    void testCbor_DispatchRoundTrip() throws Exception {
+        MedDispatchRec dispatch = new MedDispatchRec();
+        dispatch.setId(7);
+        dispatch.setDate("2025-01-06");
+        dispatch.setTime("10:00");
+        DeliveryRequirements req = new DeliveryRequirements();
+        req.setCapacity(2.5);
+        req.setCooling(true);
+        dispatch.setRequirements(req);
+        dispatch.setDelivery(new LngLat(-3.187, 55.943));
+
+        MedDispatchRec decoded = cborMapper.readValue(cborMapper.writeValueAsBytes(dispatch), MedDispatchRec.class);
+
+        assertEquals(7, decoded.getId());
+        assertEquals("10:00", decoded.getTime());
+        assertEquals(2.5, decoded.getRequirements().getCapacity());
+        assertTrue(decoded.getRequirements().getCooling());
+        assertEquals(55.943, decoded.getDelivery().getLat());
+    }
+
+    @Test
+    void testJson_DispatchCacheFieldsNotBound() throws Exception {
+        String body = "{\"id\":8,\"date\":\"2025-01-06\",\"time\":\"14:00\","
+                + "\"localDate\":\"2025-01-12\",\"localTime\":\"03:00\"}";
+
+        MedDispatchRec decoded = jsonMapper.readValue(body, MedDispatchRec.class);
+
+        assertEquals(LocalDate.of(2025, 1, 6), decoded.getLocalDate());
+        assertEquals(LocalTime.of(14, 0), decoded.getLocalTime());
+    }
+
+    // Helper method: one leg per drone of movesPerLeg compass moves, ending with the hover
+    private DeliveryPathResponse buildPlan(int drones, int movesPerLeg) {
+        List<DronePath> dronePaths = new ArrayList<>();
+        int totalMoves = 0;
+        for (int d = 0; d < drones; d++) {
+            LngLat current = new LngLat(-3.186874, 55.944494);
+            FlightPath outbound = new FlightPath();
+            outbound.add(current);
+            for (int m = 0; m < movesPerLeg; m++) {
+                double angle = DroneNavigation.ALLOWED_ANGLES[(d + m / 50) % 16];
+                current = DroneNavigation.nextPosition(current, angle);
+                outbound.addMove(current, angle);
+            }
+            outbound.add(current);
+            totalMoves += outbound.size() - 1;
+            dronePaths.add(new DronePath(String.valueOf(d), List.of(new Delivery(d, outbound))));
+        }
+        return new DeliveryPathResponse(drones * 10.0, totalMoves, dronePaths);
+    }
+}
@@ -0,0 +1,261 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.model.*;
+import uk.ac.ed.acp.cw2.service.AvailabilityService;
+import uk.ac.ed.acp.cw2.service.IlpClientService;
+import uk.ac.ed.acp.cw2.service.PathPlanningService;
+import uk.ac.ed.acp.cw2.service.PlanSessionService;
+import uk.ac.ed.acp.cw2.service.PointInRegion;
+
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for PlanSessionService.
+ * Coverage:
+ * Creating a plan plans the initial dispatches
+ * Adding a dispatch plans only that dispatch
+ * Removing a dispatch frees its drone for waiting dispatches
+ * Unknown plans and dispatches return null
+ * Reference data is fetched once per session, eligibility comes from the session's snapshot
+ * Idle sessions expire, sessions beyond the limit are rejected
+ * New no-fly zones re-plan only the legs they block, re-fetched equal zones re-plan nothing
+ */
+@ExtendWith(MockitoExtension.class)
+class PlanSessionTests {
+
+    @Mock
+    private IlpClientService ilpClientService;
+
+    @Mock
+    private AvailabilityService availabilityService;
+
+    private PlanSessionService planSessionService;
+
+    @BeforeEach
+    void setUp() {
+        planSessionService = sessionService(1800, 256);
+
+        DroneCapability capability = new DroneCapability();
+        capability.setCapacity(10.0);
+        capability.setMaxMoves(2000);
+        capability.setCostPerMove(0.01);
+        capability.setCostInitial(10.0);
+        capability.setCostFinal(5.0);
+
+        DayAvailability monday = new DayAvailability();
+        monday.setDayOfWeek("MONDAY");
+        monday.setFrom("09:00:00");
+        monday.setUntil("17:00:00");
+
+        DroneForServicePoint.DroneAvailability availability = new DroneForServicePoint.DroneAvailability();
+        availability.setId("DRONE-001");
+        availability.setAvailability(Collections.singletonList(monday));
+
+        DroneForServicePoint dfsp = new DroneForServicePoint();
+        dfsp.setServicePointId(1);
+        dfsp.setDrones(Collections.singletonList(availability));
+
+        when(ilpClientService.getDrones()).thenReturn(
+                Collections.singletonList(new Drone("DRONE-001", "Drone Alpha", capability)));
+        when(ilpClientService.getServicePoints()).thenReturn(Collections.singletonList(
+                new ServicePoint(1, "Appleton Tower", new LngLat(-3.186874, 55.944494))));
+        when(ilpClientService.getDronesForServicePoints()).thenReturn(Collections.singletonList(dfsp));
+        when(ilpClientService.getRestrictedAreas()).thenReturn(new ArrayList<>());
+    }
+
+    @Test
+    void testCreatePlan_PlansInitialDispatches() {
+        PlanDelta delta = planSessionService.createPlan(Arrays.asList(
+                createDispatch(1, "14:00", new LngLat(-3.187, 55.943)),
+                createDispatch(2, "15:00", new LngLat(-3.1875, 55.9432))));
+
+        assertNotNull(delta.getPlanId());
+        assertEquals(2, delta.getAdded().size());
+        assertTrue(delta.getUnplanned().isEmpty());
+
+        DeliveryPathResponse plan = planSessionService.getPlan(delta.getPlanId());
+        assertEquals(2, plan.getDronePaths().size());
+        assertEquals(delta.getTotalMoves(), plan.getTotalMoves());
+    }
+
+    @Test
+    void testAddDispatch_OnlyNewDispatchPlanned() {
+        PlanDelta created = planSessionService.createPlan(Collections.singletonList(
+                createDispatch(1, "14:00", new LngLat(-3.187, 55.943))));
+
+        PlanDelta delta = planSessionService.addDispatch(created.getPlanId(),
+                createDispatch(2, "15:00", new LngLat(-3.1875, 55.9432)));
+
+        assertEquals(1, delta.getAdded().size());
+        assertEquals(2, delta.getAdded().get(0).getDeliveries().get(0).getDeliveryId());
+        assertTrue(delta.getRemoved().isEmpty());
+        assertTrue(delta.getTotalMoves() > created.getTotalMoves());
+        verify(ilpClientService, times(1)).getDrones();
+        verifyNoInteractions(availabilityService);
+    }
+
+    @Test
+    void testRemoveDispatch_FreedDronePlansWaitingDispatch() {
+        // Both dispatches at the same time, the only drone can fly one of them
+        PlanDelta created = planSessionService.createPlan(Arrays.asList(
+                createDispatch(1, "14:00", new LngLat(-3.187, 55.943)),
+                createDispatch(2, "14:00", new LngLat(-3.1875, 55.9432))));
+        assertEquals(List.of(2), created.getUnplanned());
+
+        PlanDelta delta = planSessionService.removeDispatch(created.getPlanId(), 1);
+
+        assertEquals(List.of(1), delta.getRemoved());
+        assertEquals(1, delta.getAdded().size());
+        assertEquals(2, delta.getAdded().get(0).getDeliveries().get(0).getDeliveryId());
+        assertTrue(delta.getUnplanned().isEmpty());
+    }
+
+    @Test
+    void testAddDispatch_DuplicateId_Throws() {
+        PlanDelta created = planSessionService.createPlan(Collections.singletonList(
+                createDispatch(1, "14:00", new LngLat(-3.187, 55.943))));
+
+        assertThrows(IllegalArgumentException.class, () -> planSessionService.addDispatch(
+                created.getPlanId(), createDispatch(1, "15:00", new LngLat(-3.187, 55.943))));
+    }
+
+    @Test
+    void testUnknownPlanOrDispatch_ReturnsNull() {
+        PlanDelta created = planSessionService.createPlan(null);
+
+        assertNull(planSessionService.getPlan("missing"));
+        assertNull(planSessionService.addDispatch("missing",
+                createDispatch(1, "14:00", new LngLat(-3.187, 55.943))));
+        assertNull(planSessionService.removeDispatch(created.getPlanId(), 99));
+        assertTrue(planSessionService.deletePlan(created.getPlanId()));
+        assertNull(planSessionService.getPlan(created.getPlanId()));
+    }
+
+    @Test
+    void testRefreshRestrictedAreas_OnlyBlockedLegReplanned() {
+        PlanDelta created = planSessionService.createPlan(Collections.singletonList(
+                createDispatch(1, "14:00", new LngLat(-3.187, 55.943))));
+        DronePath before = created.getAdded().get(0);
+        LngLat blocked = before.getDeliveries().get(0).getFlightPath().get(5);
+
+        // Zone around a point of the outbound leg
+        RestrictedArea zone = createZone(7, blocked, 0.0002);
+        when(ilpClientService.getRestrictedAreas()).thenReturn(Collections.singletonList(zone));
+
+        List<PlanDelta> deltas = planSessionService.refreshRestrictedAreas();
+
+        assertEquals(1, deltas.size());
+        assertEquals(List.of(1), deltas.get(0).getRemoved());
+        assertEquals(1, deltas.get(0).getAdded().size());
+
+        DronePath after = deltas.get(0).getAdded().get(0);
+        Region region = new Region(zone.getName(), zone.getVertices());
+        for (Delivery delivery : after.getDeliveries()) {
+            for (LngLat point : delivery.getFlightPath()) {
+                assertFalse(PointInRegion.isPointInRegion(point, region));
+            }
+        }
+        assertEquals(deltas.get(0).getTotalMoves(), planSessionService.getPlan(created.getPlanId()).getTotalMoves());
+    }
+
+    @Test
+    void testRefreshRestrictedAreas_DistantZone_NothingReplanned() {
+        planSessionService.createPlan(Collections.singletonList(
+                createDispatch(1, "14:00", new LngLat(-3.187, 55.943))));
+
+        when(ilpClientService.getRestrictedAreas()).thenReturn(Collections.singletonList(
+                createZone(7, new LngLat(-3.20, 55.95), 0.001)));
+
+        assertTrue(planSessionService.refreshRestrictedAreas().isEmpty());
+        verifyNoInteractions(availabilityService);
+    }
+
+    @Test
+    void testRefreshRestrictedAreas_EqualZoneRefetched_NothingReplanned() {
+        when(ilpClientService.getRestrictedAreas()).thenReturn(Collections.singletonList(
+                createZone(7, new LngLat(-3.1872, 55.9437), 0.0002)));
+
+        PlanDelta created = planSessionService.createPlan(Collections.singletonList(
+                createDispatch(1, "14:00", new LngLat(-3.187, 55.943))));
+        assertEquals(1, created.getAdded().size());
+
+        // A new fetch gives new zone objects, their boxed coordinates are equal but not the same instances
+        when(ilpClientService.getRestrictedAreas()).thenReturn(Collections.singletonList(
+                createZone(7, new LngLat(-3.1872, 55.9437), 0.0002)));
+
+        assertTrue(planSessionService.refreshRestrictedAreas().isEmpty());
+    }
+
+    @Test
+    void testIdleSession_Expires() {
+        planSessionService = sessionService(0, 256);
+
+        PlanDelta created = planSessionService.createPlan(null);
+
+        assertNull(planSessionService.getPlan(created.getPlanId()));
+        assertFalse(planSessionService.deletePlan(created.getPlanId()));
+    }
+
+    @Test
+    void testSessionLimit_RejectsNewSession() {
+        planSessionService = sessionService(1800, 1);
+
+        PlanDelta created = planSessionService.createPlan(null);
+
+        assertThrows(RejectedExecutionException.class, () -> planSessionService.createPlan(null));
+        assertTrue(planSessionService.deletePlan(created.getPlanId()));
+        assertNotNull(planSessionService.createPlan(null).getPlanId());
+    }
+
+    // Helper method
+    private PlanSessionService sessionService(long idleTtlSeconds, int maxSessions) {
+        return new PlanSessionService(ilpClientService,
+                new PathPlanningService(ilpClientService, availabilityService), idleTtlSeconds, maxSessions);
+    }
+
+    // Helper method
+    private RestrictedArea createZone(int id, LngLat centre, double halfSize) {
+        RestrictedArea zone = new RestrictedArea();
+        zone.setId(id);
+        zone.setName("Zone " + id);
+        zone.setVertices(Arrays.asList(
+                new LngLat(centre.getLng() - halfSize, centre.getLat() - halfSize),
+                new LngLat(centre.getLng() + halfSize, centre.getLat() - halfSize),
+                new LngLat(centre.getLng() + halfSize, centre.getLat() + halfSize),
+                new LngLat(centre.getLng() - halfSize, centre.getLat() + halfSize),
+                new LngLat(centre.getLng() - halfSize, centre.getLat() - halfSize)));
+
+        RestrictedArea.AltitudeLimits limits = new RestrictedArea.AltitudeLimits();
+        limits.setLower(0);
+        limits.setUpper(-1);
+        zone.setLimits(limits);
+
+        return zone;
+    }
+
+    // Helper method
+    private MedDispatchRec createDispatch(int id, String time, LngLat delivery) {
+        MedDispatchRec dispatch = new MedDispatchRec();
+        dispatch.setId(id);
+        dispatch.setDate("2025-01-06");
+        dispatch.setTime(time);
+
+        DeliveryRequirements req = new DeliveryRequirements();
+        req.setCapacity(2.0);
+        dispatch.setRequirements(req);
+
+        dispatch.setDelivery(delivery);
+
+        return dispatch;
+    }
+}
@@ -0,0 +1,171 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.PlanningJobStatus;
+import uk.ac.ed.acp.cw2.service.PathPlanningService;
+import uk.ac.ed.acp.cw2.service.PlanningDeadline;
+import uk.ac.ed.acp.cw2.service.PlanningJobService;
+import uk.ac.ed.acp.cw2.service.PlanningMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for PlanningJobService.
+ * Coverage:
+ * A job runs in the background and its result can be fetched
+ * Long-poll returns once the job finishes or the wait expires, without blocking the caller
+ * Progress is reported per date group
+ * A full queue rejects new jobs
+ * Failed jobs report their error
+ * Results expire after the TTL
+ */
+@ExtendWith(MockitoExtension.class)
+class PlanningJobTests {
+
+    @Mock
+    private PathPlanningService pathPlanningService;
+
+    private PlanningJobService planningJobService;
+
+    @AfterEach
+    void tearDown() {
+        if (planningJobService != null) {
+            planningJobService.shutdown();
+        }
+    }
+
+    @Test
+    void testSubmit_RunsJobAndStoresResult() throws Exception {
+        planningJobService = new PlanningJobService(pathPlanningService, 1, 4, 600);
+        DeliveryPathResponse response = new DeliveryPathResponse(12.0, 40, new ArrayList<>());
+
+        when(pathPlanningService.calcDeliveryPath(anyList(), eq(PlanningMode.BATCHED),
+                any(PlanningDeadline.class), any())).thenAnswer(invocation -> {
+                    BiConsumer<Integer, Integer> progress = invocation.getArgument(3);
+                    progress.accept(1, 2);
+                    progress.accept(2, 2);
+                    return response;
+                });
+
+        PlanningJobStatus submitted = planningJobService.submit(new ArrayList<>(), PlanningMode.BATCHED);
+        assertNotNull(submitted.getJobId());
+
+        PlanningJobStatus status = planningJobService.getStatus(submitted.getJobId(), 5000).get(5, TimeUnit.SECONDS);
+
+        assertEquals("DONE", status.getStatus());
+        assertEquals(2, status.getPlannedGroups());
+        assertEquals(2, status.getTotalGroups());
+        assertSame(response, planningJobService.getResult(submitted.getJobId()));
+    }
+
+    @Test
+    void testSubmit_QueueFull_Rejected() throws Exception {
+        planningJobService = new PlanningJobService(pathPlanningService, 1, 1, 600);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        when(pathPlanningService.calcDeliveryPath(anyList(), any(PlanningMode.class),
+                any(PlanningDeadline.class), any())).thenAnswer(invocation -> {
+                    started.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return new DeliveryPathResponse(0.0, 0, new ArrayList<>());
+                });
+
+        PlanningJobStatus running = planningJobService.submit(List.of(), PlanningMode.SINGLE);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        PlanningJobStatus queued = planningJobService.submit(List.of(), PlanningMode.SINGLE);
+
+        assertEquals("RUNNING", planningJobService.getStatus(running.getJobId()).getStatus());
+        assertEquals("QUEUED", planningJobService.getStatus(queued.getJobId()).getStatus());
+        assertNull(planningJobService.getResult(queued.getJobId()));
+        assertThrows(RejectedExecutionException.class,
+                () -> planningJobService.submit(List.of(), PlanningMode.SINGLE));
+
+        release.countDown();
+        assertEquals("DONE", planningJobService.getStatus(queued.getJobId(), 5000).get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    void testLongPoll_CompletesWithoutBlockingCaller() throws Exception {
+        planningJobService = new PlanningJobService(pathPlanningService, 1, 4, 600);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        when(pathPlanningService.calcDeliveryPath(anyList(), any(PlanningMode.class),
+                any(PlanningDeadline.class), any())).thenAnswer(invocation -> {
+                    started.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return new DeliveryPathResponse(0.0, 0, new ArrayList<>());
+                });
+
+        PlanningJobStatus submitted = planningJobService.submit(List.of(), PlanningMode.SINGLE);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // The wait expires while the job is still running
+        CompletableFuture<PlanningJobStatus> expired = planningJobService.getStatus(submitted.getJobId(), 50);
+        assertEquals("RUNNING", expired.get(5, TimeUnit.SECONDS).getStatus());
+
+        // The poll returns at once and completes when the job finishes
+        CompletableFuture<PlanningJobStatus> waiting = planningJobService.getStatus(submitted.getJobId(), 10_000);
+        assertFalse(waiting.isDone());
+        release.countDown();
+        assertEquals("DONE", waiting.get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    void testSubmit_PlanningFails_ReportsError() throws Exception {
+        planningJobService = new PlanningJobService(pathPlanningService, 1, 4, 600);
+
+        when(pathPlanningService.calcDeliveryPath(anyList(), any(PlanningMode.class),
+                any(PlanningDeadline.class), any())).thenThrow(new IllegalStateException("ILP down"));
+
+        PlanningJobStatus submitted = planningJobService.submit(List.of(), PlanningMode.SINGLE);
+        PlanningJobStatus status = planningJobService.getStatus(submitted.getJobId(), 5000).get(5, TimeUnit.SECONDS);
+
+        assertEquals("FAILED", status.getStatus());
+        assertEquals("ILP down", status.getError());
+        assertNull(planningJobService.getResult(submitted.getJobId()));
+    }
+
+    @Test
+    void testFinishedJob_ExpiresAfterTtl() throws Exception {
+        planningJobService = new PlanningJobService(pathPlanningService, 1, 4, 0);
+
+        when(pathPlanningService.calcDeliveryPath(anyList(), any(PlanningMode.class),
+                any(PlanningDeadline.class), any())).thenReturn(new DeliveryPathResponse(0.0, 0, new ArrayList<>()));
+
+        PlanningJobStatus submitted = planningJobService.submit(List.of(), PlanningMode.SINGLE);
+
+        // With a zero TTL the job is evicted on the first call after it finishes
+        for (int i = 0; i < 500 && planningJobService.getStatus(submitted.getJobId()) != null; i++) {
+            Thread.sleep(10);
+        }
+
+        assertNull(planningJobService.getStatus(submitted.getJobId(), 0));
+        assertNull(planningJobService.getResult(submitted.getJobId()));
+    }
+
+    @Test
+    void testUnknownJob_ReturnsNull() throws Exception {
+        planningJobService = new PlanningJobService(pathPlanningService, 1, 4, 600);
+
+        assertNull(planningJobService.getStatus("missing"));
+        assertNull(planningJobService.getStatus("missing", 1000));
+        assertNull(planningJobService.getResult("missing"));
+    }
+}
@@ -0,0 +1,101 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.model.LngLat;
+import uk.ac.ed.acp.cw2.service.RouteOptimiser;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for RouteOptimiser utility class.
+ * Coverage:
+ * Savings construction merges stops into shared tours
+ * Feasibility predicate limits tour size
+ * Rejected single stops are left out
+ * Local search never makes a tour longer than plain round trips
+ * Stopping immediately keeps every stop in its own round trip
+ */
+class RouteOptimiserTests {
+
+    private static final LngLat DEPOT = new LngLat(-3.186874, 55.944494);
+
+    private static final List<LngLat> STOPS = Arrays.asList(
+            new LngLat(-3.187, 55.943),
+            new LngLat(-3.1875, 55.9432),
+            new LngLat(-3.1868, 55.9428),
+            new LngLat(-3.1900, 55.9460));
+
+    @Test
+    void testBuildTours_Unconstrained_MergesIntoOneTour() {
+        double[][] distances = RouteOptimiser.distanceMatrix(DEPOT, STOPS);
+
+        List<List<Integer>> tours = RouteOptimiser.buildTours(distances, tour -> true);
+
+        assertEquals(1, tours.size(), "Every saving is positive so all stops share a tour");
+        assertEquals(Set.of(0, 1, 2, 3), new HashSet<>(tours.get(0)));
+    }
+
+    @Test
+    void testBuildTours_MaxTwoStops_EveryStopVisitedOnce() {
+        double[][] distances = RouteOptimiser.distanceMatrix(DEPOT, STOPS);
+
+        List<List<Integer>> tours = RouteOptimiser.buildTours(distances, tour -> tour.size() <= 2);
+
+        List<Integer> visited = new ArrayList<>();
+        for (List<Integer> tour : tours) {
+            assertTrue(tour.size() <= 2, "Feasibility limit must hold");
+            visited.addAll(tour);
+        }
+        Collections.sort(visited);
+        assertEquals(Arrays.asList(0, 1, 2, 3), visited);
+    }
+
+    @Test
+    void testBuildTours_InfeasibleStop_LeftOut() {
+        double[][] distances = RouteOptimiser.distanceMatrix(DEPOT, STOPS);
+
+        List<List<Integer>> tours = RouteOptimiser.buildTours(distances, tour -> !tour.contains(3));
+
+        for (List<Integer> tour : tours) {
+            assertFalse(tour.contains(3));
+        }
+    }
+
+    @Test
+    void testBuildTours_StoppedImmediately_KeepsRoundTrips() {
+        double[][] distances = RouteOptimiser.distanceMatrix(DEPOT, STOPS);
+
+        List<List<Integer>> tours = RouteOptimiser.buildTours(distances, tour -> true, () -> true);
+
+        assertEquals(STOPS.size(), tours.size());
+        for (List<Integer> tour : tours) {
+            assertEquals(1, tour.size());
+        }
+    }
+
+    @Test
+    void testBuildTours_ShorterThanRoundTrips() {
+        double[][] distances = RouteOptimiser.distanceMatrix(DEPOT, STOPS);
+
+        double roundTrips = 0.0;
+        for (int i = 0; i < STOPS.size(); i++) {
+            roundTrips += RouteOptimiser.tourLength(List.of(i), distances);
+        }
+
+        double total = 0.0;
+        for (List<Integer> tour : RouteOptimiser.buildTours(distances, tour -> true)) {
+            total += RouteOptimiser.tourLength(tour, distances);
+        }
+
+        assertTrue(total < roundTrips);
+    }
+
+    @Test
+    void testTourLength_EmptyTour_IsZero() {
+        double[][] distances = RouteOptimiser.distanceMatrix(DEPOT, STOPS);
+
+        assertEquals(0.0, RouteOptimiser.tourLength(List.of(), distances));
+    }
+}